@@ -0,0 +1,32 @@
+package com.example.PlagiarismChecker.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.flywaydb.core.api.Location;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.flyway.FlywayConfigurationCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class FlywayConfig {
+
+    /**
+     * Adds the migrations of the opt-in DATABASE compare mode (the intarray
+     * extension and its GIN index), so a role that may not create extensions
+     * can still run the application with that mode off.
+     */
+    @Bean
+    public FlywayConfigurationCustomizer databaseModeMigrations(
+            @Value("${plagiarism.database.enabled:false}") boolean databaseModeEnabled) {
+        return configuration -> {
+            if (databaseModeEnabled) {
+                List<Location> locations = new ArrayList<>(Arrays.asList(configuration.getLocations()));
+                locations.add(new Location("classpath:db/database-mode"));
+                configuration.locations(locations.toArray(Location[]::new));
+            }
+        };
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.PlagiarismChecker.Config;
+
+import java.util.List;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.PlagiarismChecker.Service.CodeNormalizer;
+import com.example.PlagiarismChecker.Service.CodeNormalizer.Syntax;
+import com.example.PlagiarismChecker.Service.JavaAstNormalizer;
+import com.example.PlagiarismChecker.Service.JavaLanguageNormalizer;
+import com.example.PlagiarismChecker.Service.LanguageNormalizer;
+import com.example.PlagiarismChecker.Service.LexicalLanguageNormalizer;
+
+/**
+ * Supported languages. Each bean declares its extensions, comment and literal
+ * syntax and keyword set; a new language is one more bean here.
+ */
+@Configuration
+public class LanguageConfig {
+
+    @Bean
+    public LanguageNormalizer javaNormalizer(CodeNormalizer lexer, JavaAstNormalizer astNormalizer) {
+        return new JavaLanguageNormalizer(lexer, astNormalizer, CodeNormalizer.COMMON_KEYWORDS);
+    }
+
+    @Bean
+    public LanguageNormalizer pythonNormalizer(CodeNormalizer lexer) {
+        return new LexicalLanguageNormalizer(lexer, "PYTHON", List.of(".py", ".ipynb"),
+                new Syntax(false, true, false, "\"'", "", "", true), CodeNormalizer.COMMON_KEYWORDS);
+    }
+
+    @Bean
+    public LanguageNormalizer cppNormalizer(CodeNormalizer lexer) {
+        return new LexicalLanguageNormalizer(lexer, "CPP", List.of(".cpp", ".h", ".hpp"),
+                new Syntax(true, false, false, "\"'", "", "", false), CodeNormalizer.COMMON_KEYWORDS);
+    }
+
+    @Bean
+    public LanguageNormalizer goNormalizer(CodeNormalizer lexer) {
+        return new LexicalLanguageNormalizer(lexer, "GO", List.of(".go"),
+                new Syntax(true, false, false, "\"'`", "`", "`", false), CodeNormalizer.COMMON_KEYWORDS);
+    }
+
+    @Bean
+    public LanguageNormalizer rubyNormalizer(CodeNormalizer lexer) {
+        return new LexicalLanguageNormalizer(lexer, "RUBY", List.of(".rb"),
+                new Syntax(false, true, false, "\"'", "", "", false), CodeNormalizer.COMMON_KEYWORDS);
+    }
+
+    @Bean
+    public LanguageNormalizer adaNormalizer(CodeNormalizer lexer) {
+        // Ada's apostrophe also introduces attributes (X'Length), so only "..." is a literal
+        return new LexicalLanguageNormalizer(lexer, "ADA", List.of(".ada", ".adb", ".ads"),
+                new Syntax(false, false, true, "\"", "", "\"", false), CodeNormalizer.COMMON_KEYWORDS);
+    }
+
+    @Bean
+    public LanguageNormalizer javascriptNormalizer(CodeNormalizer lexer) {
+        return new LexicalLanguageNormalizer(lexer, "JAVASCRIPT", List.of(".js"),
+                new Syntax(true, false, false, "\"'`", "`", "", false), CodeNormalizer.COMMON_KEYWORDS);
+    }
+
+    @Bean
+    public LanguageNormalizer typescriptNormalizer(CodeNormalizer lexer) {
+        return new LexicalLanguageNormalizer(lexer, "TYPESCRIPT", List.of(".ts"),
+                new Syntax(true, false, false, "\"'`", "`", "", false), CodeNormalizer.COMMON_KEYWORDS);
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.PlagiarismChecker.DTO;
+
+import java.time.LocalDateTime;
+
+/**
+ * File summary plus the creation time that keyset pages are ordered by.
+ */
+public interface CodeFileListing extends CodeFileSummary {
+    LocalDateTime getCreatedAt();
+}
@@ -0,0 +1,18 @@
+package com.example.PlagiarismChecker.DTO;
+
+import java.util.List;
+
+/**
+ * One page of code search hits in file id order. Pass nextAfterId as afterId
+ * to continue; it is null once every candidate was checked. budgetExhausted
+ * means the page was cut short by the latency budget and may hold fewer hits
+ * than requested.
+ */
+public record CodeSearchPage(List<Hit> hits, Long nextAfterId, boolean budgetExhausted, int candidates) {
+
+    /**
+     * @param position offset of the first match in the normalized content
+     */
+    public record Hit(Long fileId, String fileName, String language, int position) {
+    }
+}
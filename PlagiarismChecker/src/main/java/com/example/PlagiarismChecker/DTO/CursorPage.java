@@ -0,0 +1,10 @@
+package com.example.PlagiarismChecker.DTO;
+
+import java.util.List;
+
+/**
+ * One keyset page. nextToken is opaque and null on the last page;
+ * approximateTotal is only filled when asked for.
+ */
+public record CursorPage<T>(List<T> content, String nextToken, Long approximateTotal) {
+}
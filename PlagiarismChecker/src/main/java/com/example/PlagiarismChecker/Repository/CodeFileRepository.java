@@ -1,12 +1,16 @@
 package com.example.PlagiarismChecker.Repository;
 
+import com.example.PlagiarismChecker.DTO.CodeFileListing;
 import com.example.PlagiarismChecker.DTO.CodeFileSummary;
 import com.example.PlagiarismChecker.model.CodeFile;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -14,6 +18,7 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.lang.NonNull;
+import org.springframework.transaction.annotation.Transactional;
 
 public interface CodeFileRepository extends JpaRepository<CodeFile, Long> {
 
@@ -31,20 +36,105 @@ public interface CodeFileRepository extends JpaRepository<CodeFile, Long> {
 
 	List<CodeFile> findAllByIdInAndLanguage(List<Long> ids, String language);
 
-	@Query("SELECT c FROM CodeFile c WHERE c.content LIKE %:keyword%")
-	List<CodeFile> findByContentContaining(@Param("keyword") String keyword);
+	/**
+	 * Candidate source for the DATABASE compare mode: ids of files containing
+	 * at least one probe code whose normalized overlap with the target,
+	 * shared / sqrt(|target codes| * |file codes|), reaches minOverlap, best
+	 * first. The probe lookup is answered by the GIN index on trigram_set, and
+	 * the intersection is only computed for the rows it returns, so the probe
+	 * has to be made of codes that are rare in the corpus.
+	 *
+	 * @param codes distinct target codes as an array literal, e.g. "{1,2,3}"
+	 * @param probe the few target codes used to find candidates
+	 */
+	@Query(value = """
+			SELECT id FROM (
+			    SELECT id, icount(trigram_set & CAST(:codes AS INTEGER[]))
+			               / sqrt(CAST(:targetSize AS DOUBLE PRECISION) * cardinality(trigram_set)) AS overlap
+			    FROM code_files
+			    WHERE trigram_set && CAST(:probe AS INTEGER[])
+			      AND (CAST(:language AS VARCHAR) IS NULL OR language = :language)
+			      AND ngram_config = :ngramConfig
+			      AND id <> :fileId
+			) candidates
+			WHERE overlap >= :minOverlap
+			ORDER BY overlap DESC
+			LIMIT :maxCandidates
+			""", nativeQuery = true)
+	List<Long> findCandidateIdsSharingCodes(@Param("codes") String codes, @Param("targetSize") int targetSize,
+			@Param("probe") String probe, @Param("minOverlap") double minOverlap, @Param("language") String language,
+			@Param("ngramConfig") String ngramConfig, @Param("fileId") Long fileId,
+			@Param("maxCandidates") int maxCandidates);
+
+	/**
+	 * Most common trigram_set elements and their row frequencies as array
+	 * literals, from the planner statistics; no row before the table was
+	 * first analyzed. The frequency array carries three trailing summary
+	 * values (minimum, maximum, null fraction).
+	 */
+	@Query(value = """
+			SELECT CAST(most_common_elems AS TEXT), CAST(most_common_elem_freqs AS TEXT)
+			FROM pg_stats
+			WHERE tablename = 'code_files' AND attname = 'trigram_set' AND most_common_elems IS NOT NULL
+			""", nativeQuery = true)
+	List<Object[]> findCommonCodeFrequencies();
 
 	@Query("SELECT c.id AS id, c.fileName AS fileName, c.language AS language FROM CodeFile c")
 	Page<CodeFileSummary> findAllBy(Pageable pageable);
 
+	/**
+	 * Keyset page ordered by (created_at, id): rows after the given position,
+	 * without OFFSET or a count query, so every page costs the same. The
+	 * redundant createdAt >= bound lets Postgres range-scan idx_created_at
+	 * instead of evaluating the OR for every row.
+	 */
+	@Query("""
+			SELECT c.id AS id, c.fileName AS fileName, c.language AS language, c.createdAt AS createdAt
+			FROM CodeFile c
+			WHERE c.createdAt >= :createdAt
+			  AND (c.createdAt > :createdAt OR c.id > :id)
+			ORDER BY c.createdAt, c.id
+			""")
+	List<CodeFileListing> findPageAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id,
+			Limit limit);
+
+	/**
+	 * {@link #findPageAfter} within one language. A separate query rather than
+	 * an optional filter, so even a generic plan can range-scan
+	 * idx_language_created on (language, created_at).
+	 */
+	@Query("""
+			SELECT c.id AS id, c.fileName AS fileName, c.language AS language, c.createdAt AS createdAt
+			FROM CodeFile c
+			WHERE c.language = :language
+			  AND c.createdAt >= :createdAt
+			  AND (c.createdAt > :createdAt OR c.id > :id)
+			ORDER BY c.createdAt, c.id
+			""")
+	List<CodeFileListing> findPageAfterInLanguage(@Param("language") String language,
+			@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Limit limit);
+
+	/**
+	 * Planner row estimate of the table, -1 before it was first analyzed.
+	 */
+	@Query(value = "SELECT CAST(reltuples AS BIGINT) FROM pg_class WHERE oid = to_regclass('code_files')", nativeQuery = true)
+	long estimateRowCount();
+
+	@Query("SELECT COUNT(c) FROM CodeFile c WHERE (:language IS NULL OR c.language = :language)")
+	long countByLanguage(@Param("language") String language);
+
 	boolean existsByContentHash(String contentHash);
 
+	@Query("SELECT c.normalization FROM CodeFile c WHERE c.id = :id")
+	String findNormalizationById(@Param("id") Long id);
+
 	/**
-	 * Find files where trigrams haven't been generated yet Used by async trigram
-	 * generation job
+	 * Ids among the given files whose content was normalized other than the
+	 * given way, e.g. lexical files next to an AST-normalized target.
 	 */
-	@Query("SELECT c FROM CodeFile c WHERE c.trigramsGenerated = false")
-	List<CodeFile> findFilesWithoutTrigrams();
+	@Query("SELECT c.id FROM CodeFile c WHERE c.id IN :ids AND c.normalization <> :normalization")
+	List<Long> findIdsWithOtherNormalization(@Param("ids") Collection<Long> ids,
+			@Param("normalization") String normalization);
 
 	/**
 	 * Bulk update trigrams generated flag
@@ -54,16 +144,63 @@ public interface CodeFileRepository extends JpaRepository<CodeFile, Long> {
 	void markTrigramsGenerated(@Param("ids") List<Long> ids);
 
 	/**
-	 * Find files by language without trigrams
+	 * Count files without trigrams, the backfill backlog. Files whose
+	 * backfill failed are not counted until they are retried.
 	 */
-	@Query("SELECT c FROM CodeFile c WHERE c.language = :language AND c.trigramsGenerated = false")
-	List<CodeFile> findByLanguageWithoutTrigrams(@Param("language") String language);
+	@Query(value = "SELECT COUNT(*) FROM code_files WHERE trigrams_generated = false AND NOT vector_failed", nativeQuery = true)
+	long countFilesWithoutTrigrams();
 
 	/**
-	 * Count files without trigrams
+	 * Hands files to the backfill by clearing trigrams_generated where the
+	 * stored vector, or anything derived with it, is missing or was built
+	 * under another n-gram configuration, or where content is still
+	 * uncompressed.
+	 *
+	 * @return number of files marked
 	 */
-	@Query("SELECT COUNT(c) FROM CodeFile c WHERE c.trigramsGenerated = false")
-	long countFilesWithoutTrigrams();
+	@Transactional
+	@Modifying
+	@Query(value = """
+			UPDATE code_files SET trigrams_generated = false
+			WHERE trigrams_generated = true
+			  AND (ngram_config <> :ngramConfig OR trigram_codes IS NULL OR trigram_set IS NULL
+			       OR trigram_norm IS NULL OR minhash_signature IS NULL OR fingerprints IS NULL
+			       OR content_deflated IS NULL)
+			""", nativeQuery = true)
+	int markStaleVectors(@Param("ngramConfig") String ngramConfig);
+
+	/**
+	 * Claims up to maxFiles files without trigrams, skipping failed ones.
+	 * Rows are locked until the surrounding transaction ends and rows locked
+	 * by another worker are skipped, so concurrent backfills never pick the
+	 * same file.
+	 */
+	@Query(value = """
+			SELECT id FROM code_files
+			WHERE trigrams_generated = false AND NOT vector_failed
+			ORDER BY id
+			LIMIT :maxFiles
+			FOR UPDATE SKIP LOCKED
+			""", nativeQuery = true)
+	List<Long> claimFilesWithoutTrigrams(@Param("maxFiles") int maxFiles);
+
+	/**
+	 * Sets files aside whose vector could not be generated, so the backfill
+	 * moves past them instead of claiming them again on every run.
+	 */
+	@Modifying
+	@Query(value = "UPDATE code_files SET vector_failed = true WHERE id IN (:ids)", nativeQuery = true)
+	void markVectorsFailed(@Param("ids") List<Long> ids);
+
+	/**
+	 * Gives previously failed files another backfill attempt.
+	 *
+	 * @return number of files reset
+	 */
+	@Transactional
+	@Modifying
+	@Query(value = "UPDATE code_files SET vector_failed = false WHERE vector_failed", nativeQuery = true)
+	int resetFailedVectors();
 
 	@Query("""
 			    SELECT c.contentHash, c
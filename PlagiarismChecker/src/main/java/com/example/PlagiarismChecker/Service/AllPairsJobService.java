@@ -0,0 +1,468 @@
+package com.example.PlagiarismChecker.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PreDestroy;
+import lombok.Data;
+
+/**
+ * Background N x N similarity job over one assignment's submissions.
+ *
+ * Vectors matching the filter are loaded once, in id order. The upper triangle
+ * of the pair matrix is cut into blockSize x blockSize blocks that are computed
+ * on a ForkJoinPool; each finished block commits its above-threshold edges and
+ * its completion marker in one transaction, so a failed or interrupted job can
+ * be resumed and will skip every block it already persisted.
+ *
+ * Every run carries the token it claimed the job with, and its writes only
+ * apply while the job still holds that token. A resume claims the job with one
+ * conditional update, so concurrent resumes, also from other instances, start
+ * at most one run, and a run that lost its claim stops at its next block.
+ */
+@Service
+public class AllPairsJobService {
+
+	private static final Logger logger = LoggerFactory.getLogger(AllPairsJobService.class);
+
+	private static final int MAX_EDGE_PAGE_SIZE = 1000;
+
+	private final Map<String, JobStatus> jobStatuses = new ConcurrentHashMap<>();
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final JdbcVectorScanService vectorScanService;
+
+	private final CustomCosineSimilarity cosineSimilarity;
+
+	private final int blockSize;
+
+	private final int staleAfterSeconds;
+
+	private final ForkJoinPool forkJoinPool;
+
+	// Jobs run one at a time; each already uses the whole ForkJoinPool
+	private final ExecutorService jobExecutor = Executors.newSingleThreadExecutor();
+
+	public AllPairsJobService(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+			JdbcVectorScanService vectorScanService, CustomCosineSimilarity cosineSimilarity,
+			@Value("${plagiarism.allpairs.block.size:256}") int blockSize,
+			@Value("${plagiarism.allpairs.parallelism:4}") int parallelism,
+			@Value("${plagiarism.allpairs.stale-after-seconds:600}") int staleAfterSeconds) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.transactionTemplate = transactionTemplate;
+		this.vectorScanService = vectorScanService;
+		this.cosineSimilarity = cosineSimilarity;
+		this.blockSize = Math.max(1, blockSize);
+		this.staleAfterSeconds = Math.max(1, staleAfterSeconds);
+		this.forkJoinPool = new ForkJoinPool(Math.max(1, parallelism));
+	}
+
+	/**
+	 * Registers and queues a new job.
+	 *
+	 * @param threshold minimum similarity percentage for an edge to be stored
+	 */
+	public String startJob(String language, LocalDateTime createdFrom, LocalDateTime createdTo, double threshold) {
+		if (threshold < 0 || threshold > 100) {
+			throw new IllegalArgumentException("threshold must be between 0 and 100");
+		}
+
+		String normalizedLanguage = (language != null && !language.isEmpty()) ? language.toUpperCase() : null;
+		long[] bounds = vectorScanService.idBounds(normalizedLanguage);
+		long maxFileId = bounds != null ? bounds[1] : 0;
+
+		String jobId = UUID.randomUUID().toString();
+		String runToken = UUID.randomUUID().toString();
+		jdbcTemplate.update("""
+				INSERT INTO similarity_jobs
+				(job_id, language, created_from, created_to, threshold, block_size, max_file_id, status, start_time,
+				 run_token, heartbeat_at)
+				VALUES (?, ?, ?, ?, ?, ?, ?, 'QUEUED', ?, ?, LOCALTIMESTAMP)
+				""", jobId, normalizedLanguage, toTimestamp(createdFrom), toTimestamp(createdTo), threshold, blockSize,
+				maxFileId, new Timestamp(System.currentTimeMillis()), runToken);
+
+		JobStatus status = new JobStatus();
+		status.setJobId(jobId);
+		status.setStatus("QUEUED");
+		status.setStartTime(System.currentTimeMillis());
+		jobStatuses.put(jobId, status);
+
+		jobExecutor.submit(() -> runJob(jobId, runToken));
+		logger.info("Queued all-pairs job {} (language: {}, threshold: {}%)", jobId, normalizedLanguage, threshold);
+		return jobId;
+	}
+
+	/**
+	 * Re-queues a failed or interrupted job; finished blocks are skipped. A
+	 * queued or running job is only taken over once its run has not committed
+	 * a block for plagiarism.allpairs.stale-after-seconds, i.e. its instance
+	 * stopped.
+	 */
+	public void resumeJob(String jobId) {
+		JobStatus live = jobStatuses.get(jobId);
+		if (live != null && isActive(live.getStatus())) {
+			throw new IllegalStateException("Job " + jobId + " is " + live.getStatus());
+		}
+
+		// Check and claim in one statement: of two concurrent resumes only one updates the row
+		String runToken = UUID.randomUUID().toString();
+		int claimed = jdbcTemplate.update("""
+				UPDATE similarity_jobs
+				SET status = 'QUEUED', run_token = ?, heartbeat_at = LOCALTIMESTAMP, error_message = NULL,
+				    end_time = NULL
+				WHERE job_id = ?
+				  AND (status = 'FAILED'
+				       OR (status IN ('QUEUED', 'PROCESSING')
+				           AND (heartbeat_at IS NULL OR heartbeat_at < LOCALTIMESTAMP - make_interval(secs => ?))))
+				""", runToken, jobId, staleAfterSeconds);
+		if (claimed == 0) {
+			JobStatus stored = loadStatus(jobId);
+			if (stored == null) {
+				throw new IllegalArgumentException("Job not found: " + jobId);
+			}
+			throw new IllegalStateException("Job " + jobId + " is " + stored.getStatus());
+		}
+
+		jobStatuses.put(jobId, loadStatus(jobId));
+		jobExecutor.submit(() -> runJob(jobId, runToken));
+		logger.info("Resuming all-pairs job {}", jobId);
+	}
+
+	/**
+	 * Live status for jobs run by this instance, otherwise the persisted one.
+	 */
+	public JobStatus getStatus(String jobId) {
+		JobStatus status = jobStatuses.get(jobId);
+		return status != null ? status : loadStatus(jobId);
+	}
+
+	/**
+	 * Stored edges of a job, strongest first.
+	 */
+	public List<SimilarityEdge> getEdges(String jobId, int page, int size) {
+		if (page < 0) {
+			throw new IllegalArgumentException("page must not be negative");
+		}
+		if (size < 1 || size > MAX_EDGE_PAGE_SIZE) {
+			throw new IllegalArgumentException("size must be between 1 and " + MAX_EDGE_PAGE_SIZE);
+		}
+		return jdbcTemplate.query("""
+				SELECT file_id1, file_id2, similarity FROM similarity_edges
+				WHERE job_id = ?
+				ORDER BY similarity DESC, file_id1, file_id2
+				LIMIT ? OFFSET ?
+				""", (rs, rowNum) -> new SimilarityEdge(rs.getLong(1), rs.getLong(2), rs.getDouble(3)), jobId, size,
+				(long) page * size);
+	}
+
+	private void runJob(String jobId, String runToken) {
+		JobStatus status = jobStatuses.get(jobId);
+		long startTime = System.currentTimeMillis();
+
+		try {
+			// A job that waited in the queue past the stale limit may have been claimed elsewhere
+			if (jdbcTemplate.update("UPDATE similarity_jobs SET status = 'PROCESSING', heartbeat_at = LOCALTIMESTAMP "
+					+ "WHERE job_id = ? AND run_token = ?", jobId, runToken) == 0) {
+				throw new IllegalStateException("Job " + jobId + " was claimed by another run");
+			}
+
+			JobDefinition job = jdbcTemplate.queryForObject("""
+					SELECT language, created_from, created_to, threshold, block_size, max_file_id, file_count,
+					       id_checksum
+					FROM similarity_jobs WHERE job_id = ?
+					""", (rs, rowNum) -> new JobDefinition(rs.getString(1),
+					toLocalDateTime(rs.getTimestamp(2)), toLocalDateTime(rs.getTimestamp(3)), rs.getDouble(4),
+					rs.getInt(5), rs.getLong(6), (Integer) rs.getObject(7), (Long) rs.getObject(8)), jobId);
+
+			// Build every vector once; ids are in ascending order so block positions are stable
+			List<Long> ids = new ArrayList<>();
+			List<TrigramVector> vectors = new ArrayList<>();
+			vectorScanService.scanOrdered(job.language(), job.createdFrom(), job.createdTo(), job.maxFileId(),
+					(fileId, fileName, language, vector) -> {
+						if (!vector.isEmpty()) {
+							ids.add(fileId);
+							vectors.add(vector);
+						}
+					});
+
+			long[] idArray = ids.stream().mapToLong(Long::longValue).toArray();
+			long idChecksum = idChecksum(idArray);
+			// Jobs started before id_checksum existed only recorded their file count
+			boolean corpusChanged = job.idChecksum() != null ? job.idChecksum() != idChecksum
+					: job.fileCount() != null && job.fileCount() != ids.size();
+			if (corpusChanged) {
+				throw new IllegalStateException("Corpus changed since the job started (" + job.fileCount() + " -> "
+						+ ids.size() + " files); start a new job instead of resuming");
+			}
+
+			int blocksPerSide = (ids.size() + job.blockSize() - 1) / job.blockSize();
+			int totalBlocks = blocksPerSide * (blocksPerSide + 1) / 2;
+
+			Set<Long> doneBlocks = new HashSet<>();
+			jdbcTemplate.query("SELECT block_row, block_col FROM similarity_job_blocks WHERE job_id = ?",
+					rs -> {
+						doneBlocks.add(blockKey(rs.getInt(1), rs.getInt(2)));
+					}, jobId);
+
+			List<int[]> pending = new ArrayList<>();
+			for (int row = 0; row < blocksPerSide; row++) {
+				for (int col = row; col < blocksPerSide; col++) {
+					if (!doneBlocks.contains(blockKey(row, col))) {
+						pending.add(new int[] { row, col });
+					}
+				}
+			}
+
+			claimedUpdate(jobId, runToken, "UPDATE similarity_jobs SET file_count = ?, total_blocks = ?, id_checksum = ?, "
+					+ "heartbeat_at = LOCALTIMESTAMP WHERE job_id = ? AND run_token = ?", ids.size(), totalBlocks,
+					idChecksum, jobId, runToken);
+			synchronized (status) {
+				status.setTotalFiles(ids.size());
+				status.setTotalBlocks(totalBlocks);
+				status.setCompletedBlocks(totalBlocks - pending.size());
+				status.setStatus("PROCESSING");
+			}
+
+			logger.info("All-pairs job {}: {} files, {} blocks ({} already done)", jobId, ids.size(), totalBlocks,
+					doneBlocks.size());
+
+			TrigramVector[] vectorArray = vectors.toArray(new TrigramVector[0]);
+			forkJoinPool.invoke(new BlockTask(jobId, runToken, job, idArray, vectorArray, pending, 0, pending.size(),
+					status));
+
+			claimedUpdate(jobId, runToken, "UPDATE similarity_jobs SET status = 'COMPLETED', end_time = ? "
+					+ "WHERE job_id = ? AND run_token = ?", new Timestamp(System.currentTimeMillis()), jobId, runToken);
+			synchronized (status) {
+				status.setStatus("COMPLETED");
+				status.setEndTime(System.currentTimeMillis());
+			}
+			logger.info("All-pairs job {} completed in {}ms, {} edges", jobId, System.currentTimeMillis() - startTime,
+					status.getEdgesFound());
+
+		} catch (Exception e) {
+			if (jdbcTemplate.update("UPDATE similarity_jobs SET status = 'FAILED', error_message = ?, end_time = ? "
+					+ "WHERE job_id = ? AND run_token = ?", e.getMessage(), new Timestamp(System.currentTimeMillis()),
+					jobId, runToken) == 0) {
+				// Another run owns the job now; its status is the persisted one
+				logger.warn("All-pairs job {} was claimed by another run, stopping this one", jobId);
+				jobStatuses.remove(jobId, status);
+				return;
+			}
+			logger.error("All-pairs job {} failed: {}", jobId, e.getMessage(), e);
+			synchronized (status) {
+				status.setStatus("FAILED");
+				status.setErrorMessage(e.getMessage());
+				status.setEndTime(System.currentTimeMillis());
+			}
+		}
+	}
+
+	/**
+	 * Scores one block of the upper triangle and commits its edges together
+	 * with the block's completion marker.
+	 */
+	private void computeBlock(String jobId, String runToken, JobDefinition job, long[] ids, TrigramVector[] vectors, int blockRow,
+			int blockCol, JobStatus status) {
+		int rowStart = blockRow * job.blockSize();
+		int rowEnd = Math.min(ids.length, rowStart + job.blockSize());
+		int colStart = blockCol * job.blockSize();
+		int colEnd = Math.min(ids.length, colStart + job.blockSize());
+
+		List<SimilarityEdge> edges = new ArrayList<>();
+		for (int i = rowStart; i < rowEnd; i++) {
+			// Diagonal blocks only cover the pairs above the diagonal
+			for (int j = Math.max(colStart, i + 1); j < colEnd; j++) {
+				double similarity = cosineSimilarity.cosineSimilarity(vectors[i], vectors[j]) * 100;
+				if (similarity >= job.threshold()) {
+					edges.add(new SimilarityEdge(ids[i], ids[j], similarity));
+				}
+			}
+		}
+
+		transactionTemplate.executeWithoutResult(tx -> {
+			jdbcTemplate.batchUpdate("""
+					INSERT INTO similarity_edges (job_id, file_id1, file_id2, similarity)
+					VALUES (?, ?, ?, ?)
+					ON CONFLICT DO NOTHING
+					""", edges, 500, (ps, edge) -> {
+				ps.setString(1, jobId);
+				ps.setLong(2, edge.fileId1());
+				ps.setLong(3, edge.fileId2());
+				ps.setDouble(4, edge.similarity());
+			});
+			jdbcTemplate.update("""
+					INSERT INTO similarity_job_blocks (job_id, block_row, block_col, edges, completed_at)
+					VALUES (?, ?, ?, ?, ?)
+					""", jobId, blockRow, blockCol, edges.size(), new Timestamp(System.currentTimeMillis()));
+			// Rolls the block back when the job was claimed by another run meanwhile
+			claimedUpdate(jobId, runToken, "UPDATE similarity_jobs SET completed_blocks = completed_blocks + 1, "
+					+ "edges_found = edges_found + ?, heartbeat_at = LOCALTIMESTAMP WHERE job_id = ? AND run_token = ?",
+					edges.size(), jobId, runToken);
+		});
+
+		synchronized (status) {
+			status.setCompletedBlocks(status.getCompletedBlocks() + 1);
+			status.setEdgesFound(status.getEdgesFound() + edges.size());
+		}
+	}
+
+	/**
+	 * Runs an update conditioned on the run token and fails when the job is no
+	 * longer held by this run.
+	 */
+	private void claimedUpdate(String jobId, String runToken, String sql, Object... args) {
+		if (jdbcTemplate.update(sql, args) == 0) {
+			throw new IllegalStateException("Job " + jobId + " was claimed by another run (" + runToken + ")");
+		}
+	}
+
+	private JobStatus loadStatus(String jobId) {
+		List<JobStatus> found = jdbcTemplate.query("""
+				SELECT file_count, total_blocks, completed_blocks, edges_found, status, error_message,
+				       start_time, end_time
+				FROM similarity_jobs WHERE job_id = ?
+				""", (rs, rowNum) -> {
+			JobStatus status = new JobStatus();
+			status.setJobId(jobId);
+			status.setTotalFiles(rs.getInt(1));
+			status.setTotalBlocks(rs.getInt(2));
+			status.setCompletedBlocks(rs.getInt(3));
+			status.setEdgesFound(rs.getLong(4));
+			status.setStatus(rs.getString(5));
+			status.setErrorMessage(rs.getString(6));
+			status.setStartTime(rs.getTimestamp(7).getTime());
+			Timestamp endTime = rs.getTimestamp(8);
+			status.setEndTime(endTime != null ? endTime.getTime() : null);
+			return status;
+		}, jobId);
+		return found.isEmpty() ? null : found.get(0);
+	}
+
+	private static boolean isActive(String status) {
+		return "QUEUED".equals(status) || "PROCESSING".equals(status);
+	}
+
+	/**
+	 * Order-sensitive 64-bit hash of the scored file ids: a polynomial hash
+	 * over the Murmur3-finalized ids.
+	 */
+	private static long idChecksum(long[] ids) {
+		long checksum = ids.length;
+		for (long id : ids) {
+			long h = id;
+			h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+			h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+			checksum = checksum * 0x100000001B3L + (h ^ (h >>> 33));
+		}
+		return checksum;
+	}
+
+	private static long blockKey(int row, int col) {
+		return ((long) row << 32) | (col & 0xFFFFFFFFL);
+	}
+
+	private static Timestamp toTimestamp(LocalDateTime dateTime) {
+		return dateTime != null ? Timestamp.valueOf(dateTime) : null;
+	}
+
+	private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+		return timestamp != null ? timestamp.toLocalDateTime() : null;
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		jobExecutor.shutdownNow();
+		forkJoinPool.shutdownNow();
+	}
+
+	/**
+	 * Splits the pending block list in halves until a single block remains.
+	 */
+	private final class BlockTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final String jobId;
+		private final String runToken;
+		private final JobDefinition job;
+		private final long[] ids;
+		private final TrigramVector[] vectors;
+		private final List<int[]> blocks;
+		private final int from;
+		private final int to;
+		private final JobStatus status;
+
+		BlockTask(String jobId, String runToken, JobDefinition job, long[] ids, TrigramVector[] vectors,
+				List<int[]> blocks, int from, int to, JobStatus status) {
+			this.jobId = jobId;
+			this.runToken = runToken;
+			this.job = job;
+			this.ids = ids;
+			this.vectors = vectors;
+			this.blocks = blocks;
+			this.from = from;
+			this.to = to;
+			this.status = status;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= 1) {
+				if (to > from) {
+					int[] block = blocks.get(from);
+					computeBlock(jobId, runToken, job, ids, vectors, block[0], block[1], status);
+				}
+				return;
+			}
+			int mid = (from + to) >>> 1;
+			invokeAll(new BlockTask(jobId, runToken, job, ids, vectors, blocks, from, mid, status),
+					new BlockTask(jobId, runToken, job, ids, vectors, blocks, mid, to, status));
+		}
+	}
+
+	private record JobDefinition(String language, LocalDateTime createdFrom, LocalDateTime createdTo,
+			double threshold, int blockSize, long maxFileId, Integer fileCount, Long idChecksum) {
+	}
+
+	public record SimilarityEdge(long fileId1, long fileId2, double similarity) {
+	}
+
+	@Data
+	public static class JobStatus {
+		private String jobId;
+		private int totalFiles;
+		private int totalBlocks;
+		private int completedBlocks;
+		private long edgesFound;
+		private String status; // QUEUED, PROCESSING, COMPLETED, FAILED
+		private long startTime;
+		private Long endTime;
+		private String errorMessage;
+
+		public double getProgress() {
+			if (totalBlocks == 0) return 0.0;
+			return (double) completedBlocks / totalBlocks * 100.0;
+		}
+	}
+}
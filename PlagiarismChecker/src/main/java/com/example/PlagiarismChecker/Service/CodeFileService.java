@@ -16,22 +16,28 @@ import java.util.ArrayList;
 
 import java.util.Arrays;
 
-import java.util.Comparator;
+import java.util.Collection;
 
 import java.util.HashMap;
 
+import java.util.HashSet;
+
 import java.util.List;
 
 import java.util.Map;
 
-import java.util.Objects;
-
 import java.util.Set;
 
-import java.io.BufferedReader;
+import java.util.concurrent.CompletableFuture;
+
+import java.util.concurrent.CompletionException;
+
+import java.util.concurrent.Executor;
 
 import java.io.InputStreamReader;
 
+import java.io.Reader;
+
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
@@ -40,6 +46,8 @@ import org.slf4j.LoggerFactory;
 
 import org.springframework.beans.factory.annotation.Autowired;
 
+import org.springframework.beans.factory.annotation.Value;
+
 import org.springframework.cache.annotation.Cacheable;
 
 import org.springframework.stereotype.Service;
@@ -54,6 +62,10 @@ import org.springframework.data.domain.PageImpl;
 
 import org.springframework.data.domain.Pageable;
 
+import org.springframework.data.domain.Slice;
+
+import org.springframework.data.domain.SliceImpl;
+
 import com.example.PlagiarismChecker.DTO.CodeFileSummary;
 
 import com.example.PlagiarismChecker.Repository.CodeFileRepository;
@@ -70,16 +82,6 @@ import jakarta.validation.Validator;
 
 import jakarta.validation.constraints.NotNull;
 
-import java.util.stream.IntStream;
-
-import java.util.function.Function;
-
-import java.security.MessageDigest;
-
-import java.security.NoSuchAlgorithmException;
-
-import java.util.HexFormat;
-
 @Service
 
 public class CodeFileService {
@@ -90,6 +92,8 @@ public class CodeFileService {
 
 	private static final int MAX_CONTENT_LENGTH = 50_000; // Reduced for memory efficiency
 
+	private static final long MAX_UPLOAD_CHARS = 10 * 1024 * 1024;
+
 	@Autowired
 
 	private CodeFileRepository codeFileRepository;
@@ -102,32 +106,72 @@ public class CodeFileService {
 
 	private Validator validator;
 
+	@Autowired
 
-	@Cacheable(value = "all-files", key = "'all'")
-	public Page<CodeFileSummary> GetAllFilesASAP(Pageable pageable) {
-		return codeFileRepository.findAllBy(pageable);
-	}
+	private TrigramIndex trigramIndex;
+
+	@Autowired
+
+	private LshIndex lshIndex;
 
-	private static final Map<String, String[]> SUPPORTED_LANGUAGES = new HashMap<>();
+	@Autowired
 
-	static {
+	private DenseVectorIndex denseVectorIndex;
 
-		SUPPORTED_LANGUAGES.put("JAVA", new String[] { ".java" });
+	@Autowired
 
-		SUPPORTED_LANGUAGES.put("PYTHON", new String[] { ".py", "ipynb" });
+	private FingerprintIndex fingerprintIndex;
 
-		SUPPORTED_LANGUAGES.put("CPP", new String[] { ".cpp", ".h", ".hpp" });
+	@Autowired
 
-		SUPPORTED_LANGUAGES.put("GO", new String[] { ".go" });
+	private NgramExtractor ngramExtractor;
 
-		SUPPORTED_LANGUAGES.put("RUBY", new String[] { ".rb" });
+	@Autowired
 
-		SUPPORTED_LANGUAGES.put("ADA", new String[] { ".ada", ".adb", ".ads" });
+	private LanguageRegistry languageRegistry;
 
-		SUPPORTED_LANGUAGES.put("JAVASCRIPT", new String[] { ".js" });
+	@Autowired
+
+	private TopKScanService topKScanService;
 
-		SUPPORTED_LANGUAGES.put("TYPESCRIPT", new String[] { ".ts" });
+	@Autowired
 
+	private JdbcVectorScanService jdbcVectorScanService;
+
+	@Autowired
+
+	private VectorSegmentStore vectorSegmentStore;
+
+	/** DATABASE mode needs intarray and its GIN index, which are only migrated when enabled */
+	@Value("${plagiarism.database.enabled:false}")
+
+	private boolean databaseModeEnabled;
+
+	/** Normalized code overlap, shared / sqrt(|A| * |B|), a DATABASE-mode candidate must reach */
+	@Value("${plagiarism.database.min-overlap:0.2}")
+
+	private double minDatabaseOverlap;
+
+	/** Number of corpus-rare target codes the DATABASE-mode index probe is made of */
+	@Value("${plagiarism.database.probe-codes:32}")
+
+	private int databaseProbeCodes;
+
+	@Value("${plagiarism.database.max-candidates:2000}")
+
+	private int maxDatabaseCandidates;
+
+	@Value("${plagiarism.database.stats-ttl-seconds:600}")
+
+	private long codeStatsTtlSeconds;
+
+	/** Row frequencies of the corpus' most common codes, refreshed every stats-ttl-seconds */
+	private volatile CodeFrequencies codeFrequencies;
+
+
+	@Cacheable(value = "all-files", key = "'all'")
+	public Page<CodeFileSummary> GetAllFilesASAP(Pageable pageable) {
+		return codeFileRepository.findAllBy(pageable);
 	}
 
 	public CodeFileService(CodeFileRepository codeFileRepository, Validator validator,
@@ -142,33 +186,27 @@ public class CodeFileService {
 
 	}
 
+	/**
+	 * Builds the in-memory indexes from the stored vectors, signatures and
+	 * fingerprints, streamed without content. Files lacking a current vector
+	 * are not touched here: {@link TrigramBackfillService} regenerates and
+	 * indexes them in the background.
+	 */
 	@PostConstruct
 
-	public void migrateExistingFiles() {
-
-		logger.info("Starting migration to repopulate trigram vectors for existing files...");
-
-		List<CodeFile> files = codeFileRepository.findAll();
+	public void buildIndexes() {
 
-		for (CodeFile file : files) {
-
-			String content = file.getContent();
-
-			String language = file.getLanguage();
+		logger.info("Building trigram, LSH and fingerprint indexes from stored vectors...");
 
-			String normalizedContent = normalizeContent(content, language);
+		long start = System.currentTimeMillis();
 
-			Map<String, Integer> trigrams = generateTrigrams(normalizedContent, language);
-
-			file.Settrigram_vector(trigrams);
-
-			codeFileRepository.save(file);
+		long indexed = jdbcVectorScanService.scanForIndexing((id, fileName, language, vector, signature, fingerprints) ->
 
-			logger.info("Repopulated trigrams for file ID {}: {} trigrams", file.getId(), trigrams.size());
+				indexVector(id, fileName, language, vector, signature, WinnowingFingerprints.fromBytes(fingerprints)));
 
-		}
+		logger.info("Indexed {} files in {}ms; files without a current vector are left to the backfill worker",
 
-		logger.info("Migration completed. Processed {} files.", files.size());
+				indexed, System.currentTimeMillis() - start);
 
 	}
 
@@ -192,60 +230,27 @@ public class CodeFileService {
 		if (fileName == null || !isValidExtension(fileName, langUpper)) {
 			throw new IllegalArgumentException(
 					"Invalid file extension for language " + language + ". Supported extensions: "
-							+ String.join(", ", SUPPORTED_LANGUAGES.getOrDefault(langUpper, new String[] {})));
-		}
-
-		// Check size more accurately by reading
-		StringBuilder contentBuilder = new StringBuilder();
-		try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
-			char[] buffer = new char[8192];
-			int bytesRead;
-			long totalRead = 0;
-			while ((bytesRead = reader.read(buffer)) != -1) {
-				totalRead += bytesRead;
-				if (totalRead > 10 * 1024 * 1024) {
-					throw new IllegalArgumentException("File size exceeds 10MB limit");
-				}
-				contentBuilder.append(buffer, 0, bytesRead);
-			}
+							+ String.join(", ", languageRegistry.extensions(langUpper)));
 		}
 
-		String content = contentBuilder.toString();
-		
-		String normalizedContent = normalizeContent(content, langUpper);
-		
-		CodeFile codeFile = new CodeFile();
+		NormalizedDocument document = normalizeStream(inputStream, langUpper);
 
-		try {
-			String contentHash = HexFormat.of().formatHex(
-					
-					MessageDigest.getInstance("SHA-256").digest(normalizedContent.getBytes(StandardCharsets.UTF_8)))
-					
-					.toLowerCase();
-			
-			codeFile.setContentHash(contentHash);
-			
-			if (codeFileRepository.existsByContentHash(contentHash)) {
-				
-				throw new IllegalArgumentException("Duplicate file detected: identical content already uploaded");
-			}
-			
-		} catch (NoSuchAlgorithmException e) {
-			
-			throw new RuntimeException("SHA-256 algorithm not available", e);
+		if (codeFileRepository.existsByContentHash(document.contentHash())) {
+
+			throw new IllegalArgumentException("Duplicate file detected: identical content already uploaded");
 		}
 
-		if (normalizedContent.isEmpty()) {
+		if (document.isEmpty()) {
 			throw new IllegalArgumentException("File content is empty after normalization for file: " + fileName);
 		}
 
+		CodeFile codeFile = new CodeFile();
 		codeFile.setFileName(fileName);
-		codeFile.setContent(normalizedContent);
 		codeFile.setLanguage(langUpper);
 		codeFile.setCreatedAt(LocalDateTime.now());
 
-		// DO NOT generate or set trigram_vector here – lazy generation in
-		// getTrigramVector()
+		// Vector came out of the normalization pass, so the file is searchable as soon as it is saved
+		TrigramVector vector = applyDocument(codeFile, document);
 
 		Set<ConstraintViolation<CodeFile>> violations = validator.validate(codeFile);
 		if (!violations.isEmpty()) {
@@ -255,54 +260,40 @@ public class CodeFileService {
 		logger.info("Saving file: {} with language: {}", fileName, langUpper);
 		CodeFile savedFile = codeFileRepository.save(codeFile);
 
+		indexFile(savedFile, vector);
+
 		logger.info("Saved file ID {}", savedFile.getId());
 		return savedFile;
 	}
 
 	public boolean isValidExtension(String fileName, String language) {
 
-		String[] extensions = SUPPORTED_LANGUAGES.get(language);
-
-		if (extensions == null) {
-
-			return false;
-
-		}
-
-		for (String ext : extensions) {
-
-			if (fileName.toLowerCase().endsWith(ext)) {
-
-				return true;
-
-			}
-
-		}
-
-		return false;
+		return languageRegistry.isValidExtension(fileName, language);
 
 	}
 
-	@Cacheable(value = "similarity", key = "{#fileId1, #fileId2}")
+	@Cacheable(value = "similarity", key = "{#fileId1, #fileId2, #engine}")
 	
-	public double calculateSimilarity(Long fileId1, Long fileId2) {
+	public double calculateSimilarity(Long fileId1, Long fileId2, SimilarityEngine engine) {
 		
-	    logger.info("Comparing files: {} vs. {}", fileId1, fileId2);
-	    
+	    logger.info("Comparing files: {} vs. {} (engine: {})", fileId1, fileId2, engine);
 
-	    CodeFile file1 = codeFileRepository.findById(fileId1)
-	    		
-	        .orElseThrow(() -> new IllegalArgumentException("File not found: " + fileId1));
-	    
-	    CodeFile file2 = codeFileRepository.findById(fileId2)
-	    		
-	        .orElseThrow(() -> new IllegalArgumentException("File not found: " + fileId2));
+	    if (!otherNormalizations(fileId1, List.of(fileId2)).isEmpty()) {
 
-	    Map<String, Integer> vector1 = getTrigramVector(file1);
+	    	throw new IllegalArgumentException("Files " + fileId1 + " and " + fileId2
+	    			+ " were normalized differently (lexical vs. AST) and cannot be compared");
+
+	    }
 	    
-	    Map<String, Integer> vector2 = getTrigramVector(file2);
 
-	    double similarity = cosineSimilarity.cosineSimilarity(vector1, vector2) * 100;
+	    double similarity = switch (engine) {
+
+	        case DENSE -> denseVectorIndex.similarity(vectorOf(fileId1), vectorOf(fileId2)) * 100;
+
+	        case WINNOWING -> fingerprintIndex.similarity(getFingerprints(loadFile(fileId1)), getFingerprints(loadFile(fileId2))) * 100;
+
+	        default -> cosineSimilarity.cosineSimilarity(vectorOf(fileId1), vectorOf(fileId2)) * 100;
+	    };
 	    
 	    double roundedSimilarity = roundSimilarity(similarity);  // Use your method
 
@@ -312,19 +303,21 @@ public class CodeFileService {
 	    
 	}
 
-	@Cacheable(value = "compareAll", key = "{#fileId, #pageable.pageNumber, #pageable.pageSize, #languageFilter ?: 'null', #minSimilarity ?: 'null'}")
+	/**
+	 * One page of the target's ranking against the corpus. The result is a
+	 * {@link Page} with a total only when the engine counted every qualifying
+	 * file; pruned scans and candidate-based modes return a {@link Slice}
+	 * that only says whether a further page exists.
+	 */
+	@Cacheable(value = "compareAll", key = "{#fileId, #pageable.pageNumber, #pageable.pageSize, #languageFilter ?: 'null', #minSimilarity ?: 'null', #mode, #engine}")
 	
-	public Page<SimilarityResult> compareAgainstAll(Long fileId, Pageable pageable,
+	public Slice<SimilarityResult> compareAgainstAll(Long fileId, Pageable pageable, String languageFilter,
 			
-	                                               String languageFilter, Double minSimilarity) {
+	                                               Double minSimilarity, CompareMode mode, SimilarityEngine engine) {
 		
-	    logger.info("Comparing file ID {} against paged files", fileId);
-
-	    CodeFile targetFile = codeFileRepository.findById(fileId)
-	    		
-	        .orElseThrow(() -> new IllegalArgumentException("File not found: " + fileId));
+	    logger.info("Comparing file ID {} against all indexed files (mode: {}, engine: {})", fileId, mode, engine);
 
-	    Map<String, Integer> targetVector = getTrigramVector(targetFile);
+	    TrigramVector targetVector = vectorOf(fileId);
 
 	    String normalizedLanguageFilter = (languageFilter != null && !languageFilter.isEmpty())
 	    		
@@ -332,117 +325,378 @@ public class CodeFileService {
 
 	    double effectiveMinSimilarity = minSimilarity != null ? minSimilarity : 0.0;
 
-	    Page<CodeFile> pageOfFiles = codeFileRepository.findByLanguage(normalizedLanguageFilter, pageable);
+	    // Rank the whole corpus, keep only enough to fill the requested page and tell whether another follows
+	    long pageEnd = pageable.getOffset() + pageable.getPageSize();
 
-	    List<SimilarityResult> results = pageOfFiles.getContent().stream()
-	    		
-	        .filter(file -> !Objects.equals(file.getId(), fileId))
+	    int limit = (int) Math.min(Integer.MAX_VALUE, pageEnd + 1);
+
+	    // Dense and winnowing engines query their own indexes; mode picks the sparse candidate source
+	    TopMatches topMatches = switch (engine) {
+
+	        case DENSE -> denseVectorIndex.topMatches(targetVector, fileId, normalizedLanguageFilter, effectiveMinSimilarity, limit);
+
+	        case WINNOWING -> fingerprintIndex.topMatches(getFingerprints(loadFile(fileId)), fileId, normalizedLanguageFilter, effectiveMinSimilarity, limit);
+
+	        default -> switch (mode) {
+	    
+	        case LSH -> lshTopMatches(loadFile(fileId), targetVector, normalizedLanguageFilter, effectiveMinSimilarity, limit);
 	        
-	        .map(file -> {
-	        	
-	            Map<String, Integer> otherVector = getTrigramVector(file);
-	            
-	            if (otherVector.isEmpty()) return null;
-
-	            double similarity = cosineSimilarity.cosineSimilarity(targetVector, otherVector) * 100;
-	            
-	            double rounded = roundSimilarity(similarity);
-
-	            return new SimilarityResult(file.getId(), file.getFileName(), file.getLanguage(), rounded);
-	        })
-	        .filter(Objects::nonNull)
+	        case SCAN -> topKScanService.topMatches(targetVector, fileId, normalizedLanguageFilter, effectiveMinSimilarity, limit);
 	        
-	        .filter(r -> r.getSimilarity() >= effectiveMinSimilarity)
+	        case DATABASE -> databaseTopMatches(fileId, targetVector, normalizedLanguageFilter, effectiveMinSimilarity, limit);
 	        
-	        .sorted(Comparator.comparingDouble(SimilarityResult::getSimilarity).reversed())
+	        case SEGMENTS -> segmentTopMatches(fileId, targetVector, normalizedLanguageFilter, effectiveMinSimilarity, limit);
+	        
+	        default -> trigramIndex.topMatches(targetVector, fileId, normalizedLanguageFilter, effectiveMinSimilarity, limit);
+	        };
+	    };
+
+	    List<SimilarityResult> ranked = topMatches.results();
+
+	    boolean hasNext = ranked.size() > pageEnd;
+
+	    // Files normalized differently share almost no tokens with the target; drop them instead of ranking noise
+	    Set<Long> mismatched = otherNormalizations(fileId, ranked.stream().map(SimilarityResult::getFileId).toList());
+
+	    if (!mismatched.isEmpty()) {
+
+	    	logger.warn("Skipping {} files normalized differently from file ID {}", mismatched.size(), fileId);
+
+	    	ranked = ranked.stream().filter(r -> !mismatched.contains(r.getFileId())).toList();
+
+	    }
+
+	    List<SimilarityResult> results = ranked.subList((int) Math.min(pageable.getOffset(), ranked.size()), (int) Math.min(pageEnd, ranked.size()))
+	    		
+	        .stream()
+	        
+	        .map(r -> new SimilarityResult(r.getFileId(), r.getFileName(), r.getLanguage(),
+	        		
+	            roundSimilarity(r.getSimilarity())))
 	        
 	        .collect(Collectors.toList());
 
-	    return new PageImpl<>(results, pageable, pageOfFiles.getTotalElements());
+	    if (topMatches.exactTotal() && mismatched.isEmpty()) {
+
+	    	return new PageImpl<>(results, pageable, topMatches.totalMatches());
+
+	    }
+
+	    logger.info("Returning a slice for file ID {}: at least {} files qualified, the exact count is unknown", fileId, topMatches.totalMatches());
+
+	    return new SliceImpl<>(results, pageable, hasNext);
 	}
 
-	public Map<String, Integer> generateTrigrams(String content, String language) {
-		if (content == null || content.length() < 3) {
-			return new HashMap<>();
+	/**
+	 * Scores only the LSH near-duplicate candidates of the target with the exact
+	 * cosine, so the cost depends on the candidate count rather than corpus size.
+	 */
+	private TopMatches lshTopMatches(CodeFile targetFile, TrigramVector targetVector, String language,
+
+			double minSimilarity, int limit) {
+
+		int[] signature = MinHashSignature.fromBytes(targetFile.getMinhashSignature());
+
+		if (signature == null) {
+
+			signature = MinHashSignature.compute(targetVector);
+
 		}
 
-		final String truncated = content.substring(0, Math.min(content.length(), MAX_CONTENT_LENGTH));
+		Set<Long> candidateIds = lshIndex.candidates(signature);
+
+		candidateIds.remove(targetFile.getId());
+
+		logger.info("LSH returned {} candidates for file ID {}", candidateIds.size(), targetFile.getId());
+
+		List<SimilarityResult> scored = new ArrayList<>();
+
+		forEachVector(candidateIds, (id, fileName, fileLanguage, vector) -> {
+
+			if (language != null && !language.equals(fileLanguage)) {
+
+				return;
+
+			}
+
+			double similarity = cosineSimilarity.cosineSimilarity(targetVector, vector) * 100;
+
+			if (similarity >= minSimilarity) {
+
+				scored.add(new SimilarityResult(id, fileName, fileLanguage, similarity));
+
+			}
+
+		});
+
+		scored.sort((r1, r2) -> Double.compare(r2.getSimilarity(), r1.getSimilarity()));
+
+		return new TopMatches(scored.size() > limit ? scored.subList(0, limit) : scored, scored.size(), false);
 
-		return IntStream.range(0, truncated.length() - 2).mapToObj(i -> truncated.substring(i, i + 3))
-				.collect(Collectors.groupingBy(Function.identity(), HashMap::new, Collectors.summingInt(s -> 1)));
 	}
 
-	public String normalizeContent(String content, String language) {
+	/**
+	 * Scans the local segment store, falling back to the database scan when
+	 * the store is switched off so the mode never silently returns nothing.
+	 */
+	private TopMatches segmentTopMatches(Long fileId, TrigramVector targetVector, String language,
+
+			double minSimilarity, int limit) {
+
+		if (!vectorSegmentStore.isEnabled()) {
+
+			logger.warn("Segment store is disabled, scanning the database instead");
+
+			return topKScanService.topMatches(targetVector, fileId, language, minSimilarity, limit);
+
+		}
+
+		return vectorSegmentStore.topMatches(targetVector, fileId, language, minSimilarity, limit);
+
+	}
+
+	/**
+	 * Lets Postgres pick the candidates through the GIN-indexed code array and
+	 * scores only those, with no in-memory index involved. The probe holds the
+	 * few target codes that are rarest in the corpus according to the planner's
+	 * most-common-element statistics, so the index returns few rows and the
+	 * overlap is only computed for them. Candidates are ranked by normalized
+	 * overlap, so small near-duplicates are not crowded out by large files.
+	 *
+	 * Recall trade-off: a file is only found if it contains one of the probe
+	 * codes. A near-duplicate shares most of the target's codes and so almost
+	 * always some of its rare ones, but a file resembling the target only in
+	 * common code, or one beyond max-candidates, can be missed.
+	 *
+	 * @throws IllegalArgumentException when the mode is not enabled
+	 */
+	private TopMatches databaseTopMatches(Long fileId, TrigramVector targetVector, String language,
+
+			double minSimilarity, int limit) {
+
+		if (!databaseModeEnabled) {
+
+			throw new IllegalArgumentException("The DATABASE compare mode is disabled (plagiarism.database.enabled=false)");
+
+		}
+
+		int[] codes = targetVector.codes();
+
+		if (codes.length == 0) {
+
+			return new TopMatches(List.of(), 0);
+
+		}
+
+		int[] probe = rareCodes(targetVector, Math.min(codes.length, Math.max(1, databaseProbeCodes)));
+
+		List<Long> candidateIds = codeFileRepository.findCandidateIdsSharingCodes(toArrayLiteral(codes), codes.length,
+
+				toArrayLiteral(probe), minDatabaseOverlap, language, ngramExtractor.config(), fileId, maxDatabaseCandidates);
+
+		logger.info("Database prefilter returned {} candidates for file ID {} from a probe of {} codes",
+
+				candidateIds.size(), fileId, probe.length);
+
+		List<SimilarityResult> scored = new ArrayList<>();
+
+		forEachVector(candidateIds, (id, fileName, fileLanguage, vector) -> {
+
+			double similarity = cosineSimilarity.cosineSimilarity(targetVector, vector) * 100;
+
+			if (similarity >= minSimilarity) {
+
+				scored.add(new SimilarityResult(id, fileName, fileLanguage, similarity));
+
+			}
+
+		});
+
+		scored.sort((r1, r2) -> Double.compare(r2.getSimilarity(), r1.getSimilarity()));
+
+		return new TopMatches(scored.size() > limit ? scored.subList(0, limit) : scored, scored.size(), false);
+
+	}
+
+	/**
+	 * The size codes of the vector with the lowest corpus frequency. Codes
+	 * missing from the statistics are rarer than every listed one; ties, and
+	 * everything before the table was analyzed, fall back to the count within
+	 * the target.
+	 */
+	private int[] rareCodes(TrigramVector vector, int size) {
+
+		int[] codes = vector.codes();
+
+		int[] counts = vector.counts();
 
-		if (content == null || content.trim().isEmpty()) {
+		Map<Integer, Float> frequencies = commonCodeFrequencies();
 
-			logger.warn("Empty content provided for language: {}", language);
+		Integer[] order = new Integer[codes.length];
 
-			return "";
+		for (int i = 0; i < order.length; i++) {
+
+			order[i] = i;
 
 		}
 
-		switch (language.toUpperCase()) {
+		Arrays.sort(order, (a, b) -> {
 
-		case "PYTHON":
+			int byCorpus = Float.compare(frequencies.getOrDefault(codes[a], 0f), frequencies.getOrDefault(codes[b], 0f));
 
-		case "RUBY":
+			return byCorpus != 0 ? byCorpus : Integer.compare(counts[a], counts[b]);
 
-			content = content.replaceAll("#.*?(?:\\n|$)", "");
+		});
 
-			break;
+		int[] rare = new int[size];
 
-		case "CPP":
+		for (int i = 0; i < size; i++) {
 
-		case "JAVA":
+			rare[i] = codes[order[i]];
 
-		case "JAVASCRIPT":
+		}
 
-		case "TYPESCRIPT":
+		return rare;
 
-		case "GO":
+	}
 
-			content = content.replaceAll("//.*?(?:\\n|$)", "").replaceAll("/\\*.*?\\*/", "");
+	private Map<Integer, Float> commonCodeFrequencies() {
 
-			break;
+		long now = System.currentTimeMillis();
 
-		case "ADA":
+		CodeFrequencies cached = codeFrequencies;
 
-			content = content.replaceAll("--.*?(?:\\n|$)", "");
+		if (cached != null && now - cached.loadedAt() < codeStatsTtlSeconds * 1000) {
 
-			break;
+			return cached.frequencies();
 
-		default:
+		}
 
-			logger.warn("Unsupported language for normalization: {}", language);
+		Map<Integer, Float> frequencies = new HashMap<>();
 
-			break;
+		try {
+
+			for (Object[] row : codeFileRepository.findCommonCodeFrequencies()) {
+
+				String[] elements = stripBraces((String) row[0]);
+
+				String[] values = stripBraces((String) row[1]);
+
+				for (int i = 0; i < elements.length && i < values.length; i++) {
+
+					frequencies.put(Integer.parseInt(elements[i].trim()), Float.parseFloat(values[i].trim()));
+
+				}
+
+			}
+
+		} catch (RuntimeException e) {
+
+			logger.warn("Cannot read trigram_set statistics, probing by in-file frequency: {}", e.getMessage());
 
 		}
 
-		content = content.replaceAll("\\s+", " ").toLowerCase();
+		codeFrequencies = new CodeFrequencies(frequencies, now);
+
+		logger.debug("Loaded corpus frequencies of {} common codes", frequencies.size());
+
+		return frequencies;
+
+	}
+
+	private static String[] stripBraces(String literal) {
+
+		if (literal == null || literal.length() <= 2) {
+
+			return new String[0];
+
+		}
 
-		content = content.replaceAll("[{}();\\[\\]]", " ").replaceAll(
+		return literal.substring(1, literal.length() - 1).split(",");
 
-				"\\b(public|private|protected|static|final|abstract|class|def|function|void|int|float|double|str|string|bool|boolean|if|else|for|while|do|return|break|continue|try|catch|throw|new|self|this|super|package|import|include|using|namespace|struct|type)\\b",
+	}
+
+	private record CodeFrequencies(Map<Integer, Float> frequencies, long loadedAt) {
+
+	}
+
+	private static String toArrayLiteral(int[] values) {
+
+		StringBuilder literal = new StringBuilder(values.length * 6 + 2).append('{');
+
+		for (int i = 0; i < values.length; i++) {
+
+			if (i > 0) {
+
+				literal.append(',');
+
+			}
+
+			literal.append(values[i]);
+
+		}
+
+		return literal.append('}').toString();
+
+	}
+
+	public Map<String, Integer> generateTrigrams(String content, String language) {
+		return ngramExtractor.toCounts(extractVector(content));
+	}
+
+	/**
+	 * N-grams of the active configuration over the first MAX_CONTENT_LENGTH
+	 * characters, extracted without allocating substrings.
+	 */
+	private TrigramVector extractVector(String content) {
+		return ngramExtractor.extract(content, MAX_CONTENT_LENGTH);
+	}
+
+	/**
+	 * Normalizes an upload straight from its byte stream: UTF-8 is decoded by
+	 * the reader (so multi-byte characters survive chunk boundaries) and only
+	 * the normalized text is ever held, hashed and counted into n-grams as it
+	 * is produced.
+	 *
+	 * @throws IllegalArgumentException if the upload exceeds MAX_UPLOAD_CHARS
+	 */
+	public NormalizedDocument normalizeStream(InputStream inputStream, String language) throws IOException {
+
+		NormalizedDocument document = new NormalizedDocument(ngramExtractor.accumulator(MAX_CONTENT_LENGTH));
+
+		try (Reader reader = new InputStreamReader(inputStream, StandardCharsets.UTF_8)) {
+
+			languageRegistry.forLanguageOrPlain(language).normalize(reader, MAX_UPLOAD_CHARS, document);
+
+		}
 
-				" ").replaceAll("\\b(true|false|null|none|nil)\\b", " ").replaceAll("=", " ")
+		return document;
 
-				.replaceAll("[+\\-*/%><!&|]", " ")
+	}
 
-				.replaceAll("\\b(print|println|cout|printf|puts|put|write|log|console)\\b", " ");
+	/**
+	 * Strips comments, string literals and keywords and splits identifiers in
+	 * one pass with the normalizer registered for the language; see
+	 * {@link LanguageNormalizer}.
+	 */
+	public String normalizeContent(String content, String language) {
 
-		content = content.replaceAll("([a-z])([A-Z])", "$1_$2").toLowerCase();
+		return languageRegistry.forLanguageOrPlain(language).normalize(content);
 
-		content = content.replaceAll("[0-9]", " ").replaceAll("[^a-z_\\s]", " ");
+	}
 
-		content = content.replaceAll("\\s+", " ");
+	/**
+	 * Makes freshly bulk-inserted files visible to the in-memory indexes. The
+	 * files carry the vectors set by {@link #applyDocument}, so nothing is read
+	 * back or regenerated.
+	 */
+	public void indexInsertedFiles(List<CodeFile> files) {
 
-		String normalizedContent = content.trim();
+		for (CodeFile file : files) {
 
-		logger.info("Normalized content for language {}: {}", language, normalizedContent);
+			indexFile(file, file.getTrigramCodes());
 
-		return normalizedContent;
+		}
 
 	}
 
@@ -452,37 +706,426 @@ public class CodeFileService {
 
 		codeFileRepository.deleteAll();
 
+		trigramIndex.clear();
+
+		lshIndex.clear();
+
+		denseVectorIndex.clear();
+
+		fingerprintIndex.clear();
+
+		vectorSegmentStore.clear();
+
 		logger.info("All files deleted successfully.");
 
 	}
 
 	@Transactional
-	@Cacheable(value = "trigrams", key = "#file.id")
+	@Cacheable(value = "trigrams", key = "{#file.id, @ngramExtractor.config()}")
 	public Map<String, Integer> getTrigramVector(CodeFile file) {
 
-		Map<String, Integer> trigramVector = file.Gettrigram_vector();
+		return ngramExtractor.toCounts(getCompactVector(file));
+
+	}
+
+	/**
+	 * Stored vector of the active n-gram configuration, from the binary column
+	 * or a legacy JSONB one, or null if the file has none.
+	 */
+	private TrigramVector currentVector(CodeFile file) {
+
+		if (!ngramExtractor.config().equals(file.getNgramConfig())) {
+
+			return null;
+
+		}
+
+		TrigramVector codes = file.getTrigramCodes();
+
+		if (codes != null && !codes.isEmpty()) {
+
+			return codes;
+
+		}
+
+		Map<String, Integer> legacy = file.Gettrigram_vector();
+
+		return legacy != null && !legacy.isEmpty() ? ngramExtractor.fromCounts(legacy) : null;
+
+	}
+
+	/**
+	 * Extracts, stores and indexes the vector of a file that has none, or one
+	 * built under another n-gram configuration.
+	 */
+	private TrigramVector generateVector(CodeFile file) {
+
+		Map<String, Integer> legacy = file.Gettrigram_vector();
+
+		if (file.getTrigramCodes() != null || (legacy != null && !legacy.isEmpty())) {
 
-		if (trigramVector == null || trigramVector.isEmpty()) {
+			logger.warn("File ID {} has a {} vector, regenerating as {}", file.getId(), file.getNgramConfig(),
+
+					ngramExtractor.config());
+
+		} else {
 
 			logger.info("Generating trigram vector for file ID: {}", file.getId());
 
-			trigramVector = generateTrigrams(file.getContent(), file.getLanguage());
+		}
+
+		TrigramVector vector = applyTrigrams(file, extractVector(file.getContent()));
+
+		if (vector.isEmpty()) {
+
+			logger.warn("No trigrams generated for file ID: {}", file.getId());
+
+		}
+
+		codeFileRepository.save(file);
+
+		indexFile(file, vector);
+
+		return vector;
+
+	}
+
+	/**
+	 * One backfill step: claims up to chunkSize files without trigrams
+	 * (skipping rows another worker holds), derives their vectors, signatures
+	 * and fingerprints from the content on the given executor and writes them
+	 * back in one batch. The worker threads only see the content string and
+	 * the stored vector; entities are updated on the transaction thread, and
+	 * only for files whose derivation succeeded, so a file whose extraction
+	 * throws is left untouched and marked failed instead of rolling back the
+	 * chunk. Claimed rows stay locked until the transaction commits.
+	 *
+	 * @return the backfilled files, for indexing once committed
+	 */
+	@Transactional
+
+	public List<CodeFile> backfillVectors(int chunkSize, Executor executor) {
+
+		List<Long> ids = codeFileRepository.claimFilesWithoutTrigrams(chunkSize);
+
+		if (ids.isEmpty()) {
+
+			return List.of();
+
+		}
+
+		List<CodeFile> files = codeFileRepository.findAllById(ids);
+
+		List<CompletableFuture<DerivedVectors>> futures = new ArrayList<>(files.size());
+
+		for (CodeFile file : files) {
+
+			String content = file.getContent();
+
+			TrigramVector current = currentVector(file);
 
-			if (trigramVector.isEmpty()) {
+			futures.add(CompletableFuture.supplyAsync(() -> deriveVectors(content, current), executor));
 
-				logger.warn("No trigrams generated for file ID: {}", file.getId());
+		}
+
+		List<CodeFile> backfilled = new ArrayList<>(files.size());
+
+		List<Long> failed = new ArrayList<>();
+
+		for (int i = 0; i < files.size(); i++) {
+
+			CodeFile file = files.get(i);
+
+			try {
+
+				applyDerived(file, futures.get(i).join());
+
+				file.compressLegacyContent();
+
+				backfilled.add(file);
+
+			} catch (CompletionException e) {
+
+				logger.error("Cannot backfill the vector of file ID {}: {}", file.getId(), e.getCause().getMessage());
+
+				failed.add(file.getId());
 
 			}
 
-			file.Settrigram_vector(trigramVector);
-			
-			file.setTrigramsGenerated(true);
+		}
+
+		codeFileRepository.saveAll(backfilled);
+
+		if (!failed.isEmpty()) {
+
+			codeFileRepository.markVectorsFailed(failed);
+
+		}
+
+		return backfilled;
+
+	}
+
+	/**
+	 * Everything a file's comparison columns hold, derived from its stored
+	 * (already normalized) content: a current stored vector is kept, a missing
+	 * or stale one is extracted again. Touches no entity, so it can run on any
+	 * thread.
+	 */
+	private DerivedVectors deriveVectors(String content, TrigramVector current) {
+
+		TrigramVector vector = current != null ? current : extractVector(content);
+
+		return new DerivedVectors(vector, MinHashSignature.toBytes(MinHashSignature.compute(vector)),
+
+				WinnowingFingerprints.compute(content).toBytes());
+
+	}
+
+	/**
+	 * Sets the n-gram vector and its configuration together with the derived
+	 * MinHash signature and winnowing fingerprints.
+	 */
+	private TrigramVector applyTrigrams(CodeFile file, TrigramVector vector) {
+
+		applyDerived(file, deriveVectors(file.getContent(), vector));
+
+		return vector;
+
+	}
+
+	private void applyDerived(CodeFile file, DerivedVectors derived) {
+
+		file.setTrigramCodes(derived.vector());
+
+		file.setNgramConfig(ngramExtractor.config());
+
+		file.setMinhashSignature(derived.minhashSignature());
+
+		file.setFingerprints(derived.fingerprints());
+
+		file.setTrigramsGenerated(true);
+
+	}
+
+	private record DerivedVectors(TrigramVector vector, byte[] minhashSignature, byte[] fingerprints) {
+
+	}
+
+	/**
+	 * Fills a new file from its single-pass normalization: text, content hash,
+	 * normalization, n-gram vector and everything derived from it, so the row
+	 * is written complete and never needs a write-back on first comparison.
+	 */
+	public TrigramVector applyDocument(CodeFile file, NormalizedDocument document) {
+
+		file.setContent(document.text());
+
+		file.setContentHash(document.contentHash());
+
+		file.setNormalization(document.normalization());
+
+		return applyTrigrams(file, document.vector());
+
+	}
+
+	private void indexFile(CodeFile file, TrigramVector vector) {
+
+		indexVector(file.getId(), file.getFileName(), file.getLanguage(), vector, file.getMinhashSignature(),
+
+				getFingerprints(file));
+
+	}
+
+	/**
+	 * Adds a file to every in-memory index. A missing signature is computed
+	 * from the vector; missing fingerprints leave the file out of the
+	 * fingerprint index until it is backfilled.
+	 */
+	private void indexVector(Long id, String fileName, String language, TrigramVector vector, byte[] minhashSignature,
+
+			WinnowingFingerprints fingerprints) {
+
+		trigramIndex.add(id, fileName, language, vector);
+
+		int[] signature = MinHashSignature.fromBytes(minhashSignature);
+
+		lshIndex.add(id, signature != null ? signature : MinHashSignature.compute(vector));
+
+		denseVectorIndex.add(id, fileName, language, vector);
+
+		if (fingerprints != null) {
+
+			fingerprintIndex.add(id, fileName, language, fingerprints);
+
+		}
+
+		vectorSegmentStore.add(id, fileName, language, vector);
+
+	}
+
+	/**
+	 * Compact form of {@link #getTrigramVector(CodeFile)} used by every
+	 * comparison path: sorted int codes and counts with a precomputed norm,
+	 * decoded straight from the binary column. A row still holding a JSONB
+	 * vector, or lacking its code array, is converted on this first load; a
+	 * missing vector is extracted.
+	 */
+	public TrigramVector getCompactVector(CodeFile file) {
+
+		TrigramVector vector = currentVector(file);
+
+		if (vector == null) {
+
+			return generateVector(file);
+
+		}
+
+		if (file.getTrigramCodes() == null || file.getTrigramSet() == null) {
+
+			file.setTrigramCodes(vector);
 
 			codeFileRepository.save(file);
 
 		}
 
-		return trigramVector;
+		return vector;
+
+	}
+
+	/**
+	 * Streams (id, name, language, vector) of the given files from JDBC
+	 * without loading their content. Only files with no vector of the active
+	 * configuration are loaded as entities, to extract one.
+	 */
+	private void forEachVector(Collection<Long> fileIds, JdbcVectorScanService.VectorRowConsumer consumer) {
+
+		Set<Long> missing = new HashSet<>(fileIds);
+
+		jdbcVectorScanService.scanByIds(missing, (id, fileName, language, vector) -> {
+
+			missing.remove(id);
+
+			consumer.accept(id, fileName, language, vector);
+
+		});
+
+		if (!missing.isEmpty()) {
+
+			for (CodeFile file : codeFileRepository.findAllById(missing)) {
+
+				consumer.accept(file.getId(), file.getFileName(), file.getLanguage(), getCompactVector(file));
+
+			}
+
+		}
+
+	}
+
+	private TrigramVector vectorOf(Long fileId) {
+
+		TrigramVector[] found = new TrigramVector[1];
+
+		forEachVector(List.of(fileId), (id, fileName, language, vector) -> found[0] = vector);
+
+		if (found[0] == null) {
+
+			throw new IllegalArgumentException("File not found: " + fileId);
+
+		}
+
+		return found[0];
+
+	}
+
+	/**
+	 * Ids among the given files whose content was normalized other than the
+	 * target's (lexical vs. AST). Their vectors count different tokens, so
+	 * they are never scored against the target.
+	 */
+	private Set<Long> otherNormalizations(Long targetFileId, Collection<Long> ids) {
+
+		if (ids.isEmpty()) {
+
+			return Set.of();
+
+		}
+
+		String normalization = codeFileRepository.findNormalizationById(targetFileId);
+
+		if (normalization == null) {
+
+			return Set.of();
+
+		}
+
+		return new HashSet<>(codeFileRepository.findIdsWithOtherNormalization(ids, normalization));
+
+	}
+
+	private CodeFile loadFile(Long fileId) {
+
+		return codeFileRepository.findById(fileId)
+
+				.orElseThrow(() -> new IllegalArgumentException("File not found: " + fileId));
+
+	}
+
+	/**
+	 * Stored winnowing fingerprints, or fingerprints computed from the stored
+	 * content for rows written before the column existed.
+	 */
+	public WinnowingFingerprints getFingerprints(CodeFile file) {
+
+		WinnowingFingerprints fingerprints = WinnowingFingerprints.fromBytes(file.getFingerprints());
+
+		return fingerprints != null ? fingerprints : WinnowingFingerprints.compute(file.getContent());
+
+	}
+
+	/**
+	 * Shared regions of two files located through their common fingerprints,
+	 * longest first, with the matching token range of each file as a snippet.
+	 */
+	public List<MatchRegion> findMatches(Long fileId1, Long fileId2) {
+
+		CodeFile file1 = codeFileRepository.findById(fileId1)
+
+				.orElseThrow(() -> new IllegalArgumentException("File not found: " + fileId1));
+
+		CodeFile file2 = codeFileRepository.findById(fileId2)
+
+				.orElseThrow(() -> new IllegalArgumentException("File not found: " + fileId2));
+
+		if (!file1.getNormalization().equals(file2.getNormalization())) {
+
+			throw new IllegalArgumentException("Files " + fileId1 + " and " + fileId2
+
+					+ " were normalized differently (" + file1.getNormalization() + " vs. " + file2.getNormalization() + ")");
+
+		}
+
+		String[] tokens1 = file1.getContent().trim().split(" +");
+
+		String[] tokens2 = file2.getContent().trim().split(" +");
+
+		List<MatchRegion> regions = new ArrayList<>();
+
+		for (int[] range : getFingerprints(file1).matchRanges(getFingerprints(file2))) {
+
+			int end1 = Math.min(range[1], tokens1.length);
+
+			int end2 = Math.min(range[3], tokens2.length);
+
+			regions.add(new MatchRegion(range[0], end1, String.join(" ", Arrays.copyOfRange(tokens1, range[0], end1)),
+
+					range[2], end2, String.join(" ", Arrays.copyOfRange(tokens2, range[2], end2))));
+
+		}
+
+		logger.info("Found {} matching regions between files {} and {}", regions.size(), fileId1, fileId2);
+
+		return regions;
 
 	}
 
@@ -520,7 +1163,7 @@ public class CodeFileService {
 
 		List<CodeFile> savedFiles = codeFileRepository.saveAll(codeFiles);
 
-		savedFiles.forEach(this::getTrigramVector); // Assuming this updates trigram_vector
+		savedFiles.forEach(savedFile -> indexFile(savedFile, getCompactVector(savedFile)));
 
 		return savedFiles;
 
@@ -536,27 +1179,9 @@ public class CodeFileService {
 
 		}
 
-		StringBuilder contentBuilder = new StringBuilder();
-
-		try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
-
-			char[] buffer = new char[8192]; // 8KB buffer
-
-			int bytesRead;
-
-			while ((bytesRead = reader.read(buffer)) != -1) {
-
-				contentBuilder.append(buffer, 0, bytesRead);
-
-			}
-
-		}
-
-		String content = contentBuilder.toString();
-
-		String normalizedContent = normalizeContent(content, language);
+		NormalizedDocument document = normalizeStream(inputStream, language);
 
-		if (normalizedContent.isEmpty()) {
+		if (document.isEmpty()) {
 
 			throw new IllegalArgumentException("File content is empty after normalization for file: " + fileName);
 
@@ -566,13 +1191,13 @@ public class CodeFileService {
 
 		codeFile.setFileName(fileName);
 
-		codeFile.setContent(normalizedContent);
-
 		codeFile.setLanguage(language);
 
 		codeFile.setCreatedAt(LocalDateTime.now());
 
-		return codeFile; // Trigram generation moved to post-save via getTrigramVector
+		applyDocument(codeFile, document);
+
+		return codeFile;
 
 	}
 
@@ -602,13 +1227,9 @@ public class CodeFileService {
 
 		logger.info("Batch comparing file ID {} against files: {}", targetFileId, fileIds);
 
-		CodeFile targetFile = codeFileRepository.findById(targetFileId)
-
-				.orElseThrow(() -> new IllegalArgumentException("File not found: " + targetFileId));
+		TrigramVector targetVector = vectorOf(targetFileId);
 
-		Map<String, Integer> targetVector = getTrigramVector(targetFile);
-
-		if (targetVector == null || targetVector.isEmpty()) {
+		if (targetVector.isEmpty()) {
 
 			throw new IllegalStateException("Trigram vector not found or empty for file ID: " + targetFileId);
 
@@ -616,7 +1237,7 @@ public class CodeFileService {
 
 		String normalizedLanguageFilter = languageFilter != null ? languageFilter.toUpperCase() : null;
 
-		if (normalizedLanguageFilter != null && !SUPPORTED_LANGUAGES.containsKey(normalizedLanguageFilter)) {
+		if (normalizedLanguageFilter != null && !languageRegistry.isSupported(normalizedLanguageFilter)) {
 
 			throw new IllegalArgumentException("Unsupported language: " + languageFilter);
 
@@ -624,53 +1245,54 @@ public class CodeFileService {
 
 		double effectiveMinSimilarity = minSimilarity != null ? minSimilarity : 0.0;
 
-		List<CodeFile> filesToCompare = codeFileRepository.findAllById(fileIds).stream()
+		Set<Long> idsToCompare = new HashSet<>(fileIds);
 
-				.filter(file -> !file.getId().equals(targetFileId))
+		idsToCompare.remove(targetFileId);
 
-				.filter(file -> normalizedLanguageFilter == null || file.getLanguage().equals(normalizedLanguageFilter))
+		Set<Long> mismatched = otherNormalizations(targetFileId, idsToCompare);
 
-				.collect(Collectors.toList());
+		if (!mismatched.isEmpty()) {
 
-		return filesToCompare.stream().map(file -> {
+			logger.warn("Skipping files {} normalized differently from file ID {}", mismatched, targetFileId);
 
-			try {
+			idsToCompare.removeAll(mismatched);
 
-				Map<String, Integer> otherVector = getTrigramVector(file);
+		}
 
-				if (otherVector == null || otherVector.isEmpty()) {
+		List<SimilarityResult> results = new ArrayList<>();
 
-					logger.error("Trigram vector not found or empty for file ID: {}", file.getId());
+		// Only (id, name, language, vector) tuples are read, never the content column
+		forEachVector(idsToCompare, (id, fileName, language, otherVector) -> {
 
-					return null;
+			if (normalizedLanguageFilter != null && !normalizedLanguageFilter.equals(language)) {
 
-				}
+				return;
 
-				double similarity = cosineSimilarity.cosineSimilarity(targetVector, otherVector) * 100;
+			}
 
-				double roundedSimilarity = BigDecimal.valueOf(similarity).setScale(2, RoundingMode.HALF_UP)
+			if (otherVector.isEmpty()) {
 
-						.doubleValue();
+				logger.error("Trigram vector not found or empty for file ID: {}", id);
 
-				logger.debug("Similarity between files {} and {} ({}): {}%", targetFileId, file.getId(),
+				return;
 
-						file.getLanguage(), roundedSimilarity);
+			}
 
-				return new SimilarityResult(file.getId(), file.getFileName(), file.getLanguage(), roundedSimilarity);
+			double roundedSimilarity = roundSimilarity(cosineSimilarity.cosineSimilarity(targetVector, otherVector) * 100);
 
-			} catch (Exception e) {
+			logger.debug("Similarity between files {} and {} ({}): {}%", targetFileId, id, language, roundedSimilarity);
 
-				logger.error("Error processing file ID {}: {}, Cause: {}", file.getId(), e.getMessage(), e.getCause());
+			if (roundedSimilarity >= effectiveMinSimilarity) {
 
-				return null;
+				results.add(new SimilarityResult(id, fileName, language, roundedSimilarity));
 
 			}
 
-		}).filter(result -> result != null).filter(result -> result.getSimilarity() >= effectiveMinSimilarity)
+		});
 
-				.sorted((r1, r2) -> Double.compare(r2.getSimilarity(), r1.getSimilarity()))
+		results.sort((r1, r2) -> Double.compare(r2.getSimilarity(), r1.getSimilarity()));
 
-				.collect(Collectors.toList());
+		return results;
 
 	}
 
@@ -684,9 +1306,7 @@ public class CodeFileService {
 
 		String fileName = file.getOriginalFilename();
 
-		String[] extensions = SUPPORTED_LANGUAGES.get(language.toUpperCase());
-
-		if (extensions == null || !Arrays.stream(extensions).anyMatch(fileName::endsWith)) {
+		if (!languageRegistry.isValidExtension(fileName, language)) {
 
 			throw new IllegalArgumentException("Unsupported file extension for language: " + language);
 
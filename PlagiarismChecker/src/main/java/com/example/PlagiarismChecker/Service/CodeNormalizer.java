@@ -0,0 +1,461 @@
+package com.example.PlagiarismChecker.Service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Single-pass, lexer-style source normalizer. One linear walk over the
+ * content strips comments (multi-line ones included), skips string literals,
+ * drops keywords through a perfect-hash table, splits camelCase identifiers
+ * with '_' and lowercases the rest, emitting space-separated tokens to a
+ * {@link Sink} through a small per-thread output window.
+ *
+ * This is the shared engine; the comment syntax and keyword table of each
+ * language come from its {@link LexicalLanguageNormalizer}, compiled once.
+ *
+ * Input can be a Reader, in which case only one read chunk and one output
+ * window are held regardless of file size.
+ *
+ * Output alphabet is [a-z_ ] with single spaces and no leading or trailing
+ * space, the same shape the previous regex cascade produced.
+ */
+@Component
+public class CodeNormalizer {
+
+	private static final Logger logger = LoggerFactory.getLogger(CodeNormalizer.class);
+
+	/**
+	 * Keywords, literals and output calls that carry no plagiarism signal.
+	 * Shared by every language so normalized content stays comparable across
+	 * languages and with rows stored before per-language normalizers.
+	 */
+	public static final List<String> COMMON_KEYWORDS = List.of( "public", "private", "protected", "static", "final", "abstract",
+			"class", "def", "function", "void", "int", "float", "double", "str", "string", "bool", "boolean", "if",
+			"else", "for", "while", "do", "return", "break", "continue", "try", "catch", "throw", "new", "self", "this",
+			"super", "package", "import", "include", "using", "namespace", "struct", "type", "true", "false", "null",
+			"none", "nil", "print", "println", "cout", "printf", "puts", "put", "write", "log", "console");
+
+	/** Text buffers that grew past this are dropped instead of kept per thread */
+	private static final int MAX_RETAINED_TEXT = 1 << 20;
+
+	private final ThreadLocal<Lexer> lexers = ThreadLocal.withInitial(Lexer::new);
+
+	private final ThreadLocal<StringBuilder> textBuffers = ThreadLocal.withInitial(StringBuilder::new);
+
+	/**
+	 * Receives normalized output in order, a window at a time. The buffer is
+	 * reused after the call returns.
+	 */
+	@FunctionalInterface
+	public interface Sink {
+		void accept(char[] buffer, int offset, int length);
+
+		/**
+		 * Where a normalizer emitting a structural stream also sends the
+		 * lexical normalization of the same input, for sinks that identify
+		 * documents by it; null when the sink has no use for it.
+		 */
+		default Sink lexical() {
+			return null;
+		}
+	}
+
+	String normalize(String content, Syntax syntax, KeywordTable keywords) {
+		if (content == null || content.isBlank()) {
+			logger.warn("Empty content provided for normalization");
+			return "";
+		}
+
+		StringBuilder text = textBuffers.get();
+		if (text.capacity() > MAX_RETAINED_TEXT) {
+			text = new StringBuilder();
+			textBuffers.set(text);
+		}
+		text.setLength(0);
+
+		Lexer lexer = start(syntax, keywords, text::append);
+		char[] chunk = lexer.chunk;
+		for (int offset = 0; offset < content.length(); offset += chunk.length) {
+			int end = Math.min(content.length(), offset + chunk.length);
+			content.getChars(offset, end, chunk, 0);
+			lexer.feed(chunk, 0, end - offset);
+		}
+		lexer.finish();
+
+		logger.debug("Normalized content: {} -> {} chars", content.length(), text.length());
+		return text.toString();
+	}
+
+	/**
+	 * Normalizes everything the reader yields into the sink without holding
+	 * the raw content.
+	 *
+	 * @param maxChars upper bound on characters read
+	 * @return number of characters read
+	 * @throws IllegalArgumentException if the input exceeds maxChars
+	 */
+	long normalize(Reader reader, Syntax syntax, KeywordTable keywords, long maxChars, Sink sink) throws IOException {
+		Lexer lexer = start(syntax, keywords, sink);
+		char[] chunk = lexer.chunk;
+		long total = 0;
+		int read;
+		while ((read = reader.read(chunk)) != -1) {
+			total += read;
+			if (total > maxChars) {
+				throw new IllegalArgumentException("File size exceeds the limit of " + maxChars + " characters");
+			}
+			lexer.feed(chunk, 0, read);
+		}
+		lexer.finish();
+
+		logger.debug("Normalized {} chars from stream", total);
+		return total;
+	}
+
+	private Lexer start(Syntax syntax, KeywordTable keywords, Sink sink) {
+		Lexer lexer = lexers.get();
+		lexer.reset(syntax, keywords, sink);
+		return lexer;
+	}
+
+	/**
+	 * Comment and string-literal syntax of a language.
+	 *
+	 * @param quotes          characters opening a string or char literal
+	 * @param multiLineQuotes quotes whose literals may span lines
+	 * @param rawQuotes       quotes whose literals have no backslash escapes
+	 * @param tripleQuotes    whether """ / ''' open a multi-line literal
+	 */
+	public record Syntax(boolean slashComments, boolean hashComments, boolean dashComments, String quotes,
+			String multiLineQuotes, String rawQuotes, boolean tripleQuotes) {
+
+		/** Unknown languages: tokenization and keyword removal only */
+		public static final Syntax PLAIN = new Syntax(false, false, false, "", "", "", false);
+	}
+
+	/**
+	 * Character-at-a-time state machine. State survives across feed calls,
+	 * so a comment, literal or identifier may straddle chunk boundaries.
+	 * Separators are held back until the next token so output never starts
+	 * or ends with a space and never contains two in a row.
+	 */
+	private static final class Lexer {
+
+		private static final int CODE = 0;
+		private static final int SLASH = 1;
+		private static final int DASH = 2;
+		private static final int LINE_COMMENT = 3;
+		private static final int BLOCK_COMMENT = 4;
+		private static final int BLOCK_STAR = 5;
+		private static final int STRING = 6;
+		private static final int STRING_ESCAPE = 7;
+		private static final int QUOTE_PAIR = 8;
+		private static final int TRIPLE_STRING = 9;
+		private static final int TRIPLE_ESCAPE = 10;
+
+		private final char[] chunk = new char[8192];
+
+		private final char[] out = new char[8192];
+
+		private int outLength;
+
+		private boolean pendingSpace;
+
+		private boolean emittedAny;
+
+		private Sink sink;
+
+		private char[] word = new char[64];
+
+		private int wordLength;
+
+		private Syntax syntax;
+
+		private KeywordTable keywords;
+
+		private int state;
+
+		private char quote;
+
+		private int literalLength;
+
+		private int quoteRun;
+
+		void reset(Syntax syntax, KeywordTable keywords, Sink sink) {
+			this.syntax = syntax;
+			this.keywords = keywords;
+			this.sink = sink;
+			outLength = 0;
+			pendingSpace = false;
+			emittedAny = false;
+			wordLength = 0;
+			state = CODE;
+		}
+
+		void feed(char[] buffer, int offset, int length) {
+			for (int i = offset, end = offset + length; i < end; i++) {
+				process(buffer[i]);
+			}
+		}
+
+		void finish() {
+			flushWord();
+			flush();
+			sink = null;
+		}
+
+		private void process(char c) {
+			switch (state) {
+			case CODE -> code(c);
+			case SLASH -> {
+				if (c == '*') {
+					state = BLOCK_COMMENT;
+				} else if (c == '/') {
+					state = LINE_COMMENT;
+				} else {
+					state = CODE;
+					separator();
+					code(c);
+				}
+			}
+			case DASH -> {
+				if (c == '-') {
+					state = LINE_COMMENT;
+				} else {
+					state = CODE;
+					separator();
+					code(c);
+				}
+			}
+			case LINE_COMMENT -> {
+				if (c == '\n') {
+					state = CODE;
+					separator();
+				}
+			}
+			case BLOCK_COMMENT -> {
+				if (c == '*') {
+					state = BLOCK_STAR;
+				}
+			}
+			case BLOCK_STAR -> {
+				if (c == '/') {
+					state = CODE;
+					separator();
+				} else if (c != '*') {
+					state = BLOCK_COMMENT;
+				}
+			}
+			case STRING -> string(c);
+			case STRING_ESCAPE -> {
+				state = STRING;
+				literalLength++;
+			}
+			case QUOTE_PAIR -> {
+				if (c == quote) {
+					state = TRIPLE_STRING;
+					quoteRun = 0;
+				} else {
+					// It was just an empty literal
+					state = CODE;
+					code(c);
+				}
+			}
+			case TRIPLE_STRING -> {
+				if (c == '\\') {
+					state = TRIPLE_ESCAPE;
+					quoteRun = 0;
+				} else if (c == quote) {
+					if (++quoteRun == 3) {
+						state = CODE;
+					}
+				} else {
+					quoteRun = 0;
+				}
+			}
+			case TRIPLE_ESCAPE -> state = TRIPLE_STRING;
+			default -> throw new IllegalStateException("Unknown lexer state " + state);
+			}
+		}
+
+		private void code(char c) {
+			if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_') {
+				if (wordLength == word.length) {
+					word = Arrays.copyOf(word, wordLength * 2);
+				}
+				word[wordLength++] = c;
+				return;
+			}
+
+			flushWord();
+			if (c == '/' && syntax.slashComments()) {
+				state = SLASH;
+			} else if (c == '#' && syntax.hashComments()) {
+				state = LINE_COMMENT;
+			} else if (c == '-' && syntax.dashComments()) {
+				state = DASH;
+			} else if (syntax.quotes().indexOf(c) >= 0) {
+				separator();
+				quote = c;
+				literalLength = 0;
+				state = STRING;
+			} else {
+				separator();
+			}
+		}
+
+		private void string(char c) {
+			if (c == '\\' && syntax.rawQuotes().indexOf(quote) < 0) {
+				state = STRING_ESCAPE;
+			} else if (c == quote) {
+				state = (literalLength == 0 && syntax.tripleQuotes()) ? QUOTE_PAIR : CODE;
+			} else if (c == '\n' && syntax.multiLineQuotes().indexOf(quote) < 0) {
+				// Unterminated single-line literal, resume lexing on the next line
+				state = CODE;
+			} else {
+				literalLength++;
+			}
+		}
+
+		/**
+		 * Ends the current identifier: stop words become a separator, anything
+		 * else is lowercased with '_' at lower-to-upper camelCase boundaries and
+		 * digits turned into separators.
+		 */
+		private void flushWord() {
+			if (wordLength == 0) {
+				return;
+			}
+			if (keywords.contains(word, wordLength)) {
+				separator();
+			} else {
+				for (int i = 0; i < wordLength; i++) {
+					char c = word[i];
+					if (c >= '0' && c <= '9') {
+						separator();
+						continue;
+					}
+					if (c >= 'A' && c <= 'Z') {
+						if (i > 0 && word[i - 1] >= 'a' && word[i - 1] <= 'z') {
+							emit('_');
+						}
+						c = (char) (c + ('a' - 'A'));
+					}
+					emit(c);
+				}
+			}
+			wordLength = 0;
+		}
+
+		private void separator() {
+			pendingSpace = emittedAny;
+		}
+
+		private void emit(char c) {
+			if (pendingSpace) {
+				put(' ');
+				pendingSpace = false;
+			}
+			put(c);
+			emittedAny = true;
+		}
+
+		private void put(char c) {
+			if (outLength == out.length) {
+				flush();
+			}
+			out[outLength++] = c;
+		}
+
+		private void flush() {
+			if (outLength > 0) {
+				sink.accept(out, 0, outLength);
+				outLength = 0;
+			}
+		}
+	}
+
+	/**
+	 * Collision-free open table for a fixed word list: a multiplier is searched
+	 * once at construction so every word lands in its own slot, and a lookup is
+	 * one hash plus at most one case-insensitive comparison.
+	 */
+	static final class KeywordTable {
+
+		private final char[][] slots;
+
+		private final int multiplier;
+
+		private final int shift;
+
+		private final int maxLength;
+
+		KeywordTable(List<String> words) {
+			int bits = 32 - Integer.numberOfLeadingZeros(Math.max(words.size(), 1) * 4 - 1);
+			SplittableRandom random = new SplittableRandom(0x2545F4914F6CDD1DL);
+			while (true) {
+				int size = 1 << bits;
+				for (int attempt = 0; attempt < 10_000; attempt++) {
+					int candidate = random.nextInt() | 1;
+					char[][] table = place(words, candidate, 32 - bits, size);
+					if (table != null) {
+						this.slots = table;
+						this.multiplier = candidate;
+						this.shift = 32 - bits;
+						this.maxLength = words.stream().mapToInt(String::length).max().orElse(0);
+						return;
+					}
+				}
+				bits++;
+			}
+		}
+
+		boolean contains(char[] word, int length) {
+			if (length > maxLength) {
+				return false;
+			}
+			char[] candidate = slots[hash(word, length, multiplier, shift)];
+			if (candidate == null || candidate.length != length) {
+				return false;
+			}
+			for (int i = 0; i < length; i++) {
+				if (lower(word[i]) != candidate[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private static char[][] place(List<String> words, int multiplier, int shift, int size) {
+			char[][] table = new char[size][];
+			for (String word : words) {
+				char[] chars = word.toCharArray();
+				int slot = hash(chars, chars.length, multiplier, shift);
+				if (table[slot] != null) {
+					return null;
+				}
+				table[slot] = chars;
+			}
+			return table;
+		}
+
+		private static int hash(char[] word, int length, int multiplier, int shift) {
+			int h = 0;
+			for (int i = 0; i < length; i++) {
+				h = h * 31 + lower(word[i]);
+			}
+			return (h * multiplier) >>> shift;
+		}
+
+		private static char lower(char c) {
+			return (c >= 'A' && c <= 'Z') ? (char) (c + ('a' - 'A')) : c;
+		}
+	}
+}
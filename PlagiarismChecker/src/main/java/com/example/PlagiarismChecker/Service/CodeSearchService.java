@@ -0,0 +1,225 @@
+package com.example.PlagiarismChecker.Service;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.example.PlagiarismChecker.DTO.CodeSearchPage;
+import com.example.PlagiarismChecker.model.CompressedText;
+
+/**
+ * Substring and token search over the stored normalized content.
+ *
+ * Candidates come from the in-memory {@link TrigramIndex}: a file can only
+ * contain the query if its vector holds every n-gram of the query (of every
+ * query token in TOKEN mode), so the postings of those codes are intersected
+ * and only the survivors have their content fetched and checked. Word
+ * n-gram configurations cannot prefilter substrings, so every file is a
+ * candidate there. Vectors cover the first 50,000 normalized characters, so
+ * a match only past that point of a longer file is not found. A query with
+ * no n-gram to look up (shorter than the n-gram length, or only such tokens)
+ * would make every file a candidate and is rejected instead.
+ *
+ * Pages are keyed by file id and verification stops at the latency budget;
+ * a page cut short says so and its continuation id resumes where checking
+ * stopped.
+ */
+@Service
+public class CodeSearchService {
+
+	private static final Logger logger = LoggerFactory.getLogger(CodeSearchService.class);
+
+	private static final int FETCH_BATCH = 64;
+
+	private static final int MAX_PAGE_SIZE = 200;
+
+	@Autowired
+	private TrigramIndex trigramIndex;
+
+	@Autowired
+	private NgramExtractor ngramExtractor;
+
+	@Autowired
+	private LanguageRegistry languageRegistry;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Value("${plagiarism.search.budget-ms:2000}")
+	private long defaultBudgetMillis;
+
+	/**
+	 * @param language  upper-case language filter, or null for all
+	 * @param normalize run the query through the language's normalizer, as
+	 *                  stored content was; false searches the normalized form as given
+	 * @param afterId   only files with a greater id, for the following pages
+	 * @param budgetMs  latency budget, or null for the configured default
+	 * @throws IllegalArgumentException for an empty query or a bad page size
+	 */
+	public CodeSearchPage search(String query, SearchMode mode, String language, boolean normalize, Long afterId,
+			int size, Long budgetMs) {
+		long start = System.currentTimeMillis();
+		long budget = budgetMs != null ? Math.min(budgetMs, defaultBudgetMillis * 5) : defaultBudgetMillis;
+		long deadline = start + Math.max(1, budget);
+
+		if (size <= 0 || size > MAX_PAGE_SIZE) {
+			throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+		}
+		String needle = normalizeQuery(query, language, normalize);
+		String[] tokens = needle.split(" ");
+
+		long[] candidates = trigramIndex.filesContainingAll(queryCodes(needle, tokens, mode), language,
+				afterId != null ? afterId : 0);
+
+		List<CodeSearchPage.Hit> hits = new ArrayList<>();
+		Long nextAfterId = null;
+		boolean budgetExhausted = false;
+
+		for (int from = 0; from < candidates.length; from += FETCH_BATCH) {
+			// The first batch is always checked, so every call makes progress
+			if (from > 0 && System.currentTimeMillis() >= deadline) {
+				budgetExhausted = true;
+				nextAfterId = candidates[from - 1];
+				break;
+			}
+
+			long[] batch = Arrays.copyOfRange(candidates, from, Math.min(candidates.length, from + FETCH_BATCH));
+			Map<Long, StoredText> contents = fetchContents(batch);
+			for (long id : batch) {
+				StoredText stored = contents.get(id);
+				if (stored == null) {
+					continue;
+				}
+				int position = mode == SearchMode.TOKEN ? tokenPosition(stored.text(), tokens)
+						: stored.text().indexOf(needle);
+				if (position < 0) {
+					continue;
+				}
+				if (hits.size() == size) {
+					// A further hit exists, so the page ends at the previous one
+					nextAfterId = hits.get(size - 1).fileId();
+					break;
+				}
+				hits.add(new CodeSearchPage.Hit(id, stored.fileName(), stored.language(), position));
+			}
+			if (nextAfterId != null) {
+				break;
+			}
+		}
+
+		logger.debug("Search for '{}' ({}): {} candidates, {} hits in {}ms{}", needle, mode, candidates.length,
+				hits.size(), System.currentTimeMillis() - start, budgetExhausted ? ", budget exhausted" : "");
+		return new CodeSearchPage(hits, nextAfterId, budgetExhausted, candidates.length);
+	}
+
+	private String normalizeQuery(String query, String language, boolean normalize) {
+		if (query == null || query.isBlank()) {
+			throw new IllegalArgumentException("Search query is empty");
+		}
+		String needle;
+		if (normalize) {
+			LanguageNormalizer normalizer = language != null ? languageRegistry.forLanguageOrPlain(language)
+					: languageRegistry.plain();
+			needle = normalizer.normalize(query);
+		} else {
+			needle = query.trim().replaceAll("\\s+", " ");
+		}
+		if (needle == null || needle.isEmpty()) {
+			throw new IllegalArgumentException("Search query is empty after normalization (keywords and literals are not stored)");
+		}
+		return needle;
+	}
+
+	/**
+	 * N-gram codes every matching file's vector must contain; none when the
+	 * active configuration cannot tell.
+	 *
+	 * @throws IllegalArgumentException when the query is too short to yield a code
+	 */
+	private int[] queryCodes(String needle, String[] tokens, SearchMode mode) {
+		if (ngramExtractor.unit() != NgramExtractor.Unit.CHAR) {
+			return new int[0];
+		}
+		int[] codes;
+		if (mode == SearchMode.SUBSTRING) {
+			codes = ngramExtractor.extract(needle, needle.length()).codes();
+		} else {
+			codes = new int[0];
+			for (String token : tokens) {
+				int[] tokenCodes = ngramExtractor.extract(token, token.length()).codes();
+				int n = codes.length;
+				codes = Arrays.copyOf(codes, n + tokenCodes.length);
+				System.arraycopy(tokenCodes, 0, codes, n, tokenCodes.length);
+			}
+			codes = Arrays.stream(codes).distinct().toArray();
+		}
+		if (codes.length == 0) {
+			throw new IllegalArgumentException("Search query must have at least " + ngramExtractor.length()
+					+ " characters" + (mode == SearchMode.TOKEN ? " in one of its tokens" : ""));
+		}
+		return codes;
+	}
+
+	/**
+	 * Position of the first query token if every token occurs as a whole
+	 * token of the content, otherwise -1.
+	 */
+	private static int tokenPosition(String content, String[] tokens) {
+		int first = -1;
+		for (String token : tokens) {
+			int at = -1;
+			for (int i = content.indexOf(token); i >= 0; i = content.indexOf(token, i + 1)) {
+				int end = i + token.length();
+				if ((i == 0 || content.charAt(i - 1) == ' ') && (end == content.length() || content.charAt(end) == ' ')) {
+					at = i;
+					break;
+				}
+			}
+			if (at < 0) {
+				return -1;
+			}
+			if (first < 0) {
+				first = at;
+			}
+		}
+		return first;
+	}
+
+	/**
+	 * Name, language and content of the given files; compressed content is
+	 * inflated here, legacy rows are read as text.
+	 */
+	private Map<Long, StoredText> fetchContents(long[] ids) {
+		Map<Long, StoredText> contents = new HashMap<>(ids.length * 2);
+		jdbcTemplate.query(con -> {
+			PreparedStatement ps = con.prepareStatement("""
+					SELECT id, file_name, language, content_deflated, content
+					FROM code_files
+					WHERE id = ANY(?)
+					""");
+			ps.setArray(1, con.createArrayOf("bigint", Arrays.stream(ids).boxed().toArray()));
+			return ps;
+		}, (ResultSet rs) -> {
+			CompressedText compressed = CompressedText.fromBytes(rs.getBytes(4));
+			String text = compressed != null ? compressed.text() : rs.getString(5);
+			if (text != null) {
+				contents.put(rs.getLong(1), new StoredText(rs.getString(2), rs.getString(3), text));
+			}
+		});
+		return contents;
+	}
+
+	private record StoredText(String fileName, String language, String text) {
+	}
+}
@@ -0,0 +1,22 @@
+package com.example.PlagiarismChecker.Service;
+
+/**
+ * Candidate source used by compare-all.
+ */
+public enum CompareMode {
+
+    /** Exact scores for every file sharing a trigram, via the inverted index */
+    INDEX,
+
+    /** Exact scores for the near-duplicate candidates returned by MinHash LSH */
+    LSH,
+
+    /** Exact scores for every stored vector, streamed in parallel partitions */
+    SCAN,
+
+    /** Exact scores for the files Postgres finds through the target's rarest codes, via the GIN-indexed code array; opt-in, plagiarism.database.enabled */
+    DATABASE,
+
+    /** Exact scores for every vector in the local memory-mapped segment store */
+    SEGMENTS
+}
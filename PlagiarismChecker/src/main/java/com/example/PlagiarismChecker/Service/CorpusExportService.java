@@ -0,0 +1,222 @@
+package com.example.PlagiarismChecker.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Streams the corpus (metadata, content hash and vector of every file) to an
+ * output stream in one pass over a forward-only cursor. Rows are written as
+ * they are fetched and never collected, so heap use depends on the fetch
+ * size, not on the corpus size. The cursor is only honoured by PostgreSQL
+ * inside a transaction, hence the read-only one around the export.
+ *
+ * NDJSON is one object per line. BINARY is a "PCX1" magic followed by
+ * records of id (long), file name, language, created_at as UTC epoch millis,
+ * content hash and n-gram config (modified UTF-8 strings), norm (double) and
+ * the stored delta + varint vector (int length, bytes); a record with id -1
+ * ends the stream.
+ */
+@Service
+public class CorpusExportService {
+
+	private static final Logger logger = LoggerFactory.getLogger(CorpusExportService.class);
+
+	private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+	private static final int BINARY_MAGIC = 0x50435831;
+
+	private static final int FLUSH_EVERY = 1000;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Value("${plagiarism.export.fetch-size:1000}")
+	private int fetchSize;
+
+	public enum Format {
+		NDJSON, BINARY
+	}
+
+	/**
+	 * @param language upper-case language filter, or null for all
+	 * @param since    only files created at or after this time, or null for all
+	 * @return number of files written
+	 */
+	@Transactional(readOnly = true)
+	public long export(String language, LocalDateTime since, Format format, OutputStream out) {
+		String sql = """
+				SELECT id, file_name, language, created_at, content_hash, ngram_config,
+				       trigram_codes, trigram_vector::text AS trigram_json
+				FROM code_files
+				WHERE (CAST(? AS VARCHAR) IS NULL OR language = ?)
+				  AND (CAST(? AS TIMESTAMP) IS NULL OR created_at >= ?)
+				ORDER BY id
+				""";
+		Timestamp from = since != null ? Timestamp.valueOf(since) : null;
+		long start = System.currentTimeMillis();
+
+		try {
+			RowWriter writer = format == Format.BINARY ? new BinaryWriter(out) : new NdjsonWriter(out);
+			long[] rows = { 0 };
+
+			jdbcTemplate.query(con -> {
+				PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+						ResultSet.CONCUR_READ_ONLY);
+				ps.setFetchSize(fetchSize);
+				ps.setString(1, language);
+				ps.setString(2, language);
+				ps.setTimestamp(3, from);
+				ps.setTimestamp(4, from);
+				return ps;
+			}, (ResultSet rs) -> {
+				try {
+					writer.write(rs);
+					if (++rows[0] % FLUSH_EVERY == 0) {
+						writer.flush();
+					}
+				} catch (IOException e) {
+					// Client went away; abort the query instead of reading the rest of the table
+					throw new UncheckedIOException(e);
+				}
+			});
+
+			writer.finish();
+			logger.info("Exported {} files as {} in {}ms", rows[0], format, System.currentTimeMillis() - start);
+			return rows[0];
+		} catch (IOException e) {
+			throw new UncheckedIOException("Corpus export failed", e);
+		}
+	}
+
+	/**
+	 * Stored binary vector, or the legacy JSONB one converted to it.
+	 */
+	private static TrigramVector vector(ResultSet rs, String ngramConfig) throws SQLException {
+		TrigramVector vector = TrigramVector.fromBytes(rs.getBytes("trigram_codes"));
+		if (vector == null) {
+			String json = rs.getString("trigram_json");
+			vector = json != null
+					? JdbcVectorScanService.parseVector(json, NgramExtractor.DEFAULT_CONFIG.equals(ngramConfig))
+					: null;
+		}
+		return vector;
+	}
+
+	private interface RowWriter {
+
+		void write(ResultSet rs) throws SQLException, IOException;
+
+		void flush() throws IOException;
+
+		void finish() throws IOException;
+	}
+
+	private static final class NdjsonWriter implements RowWriter {
+
+		private final JsonGenerator json;
+
+		NdjsonWriter(OutputStream out) throws IOException {
+			this.json = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8);
+			// Objects are separated by newlines instead of commas
+			json.setRootValueSeparator(null);
+		}
+
+		@Override
+		public void write(ResultSet rs) throws SQLException, IOException {
+			String ngramConfig = rs.getString("ngram_config");
+			TrigramVector vector = vector(rs, ngramConfig);
+
+			json.writeStartObject();
+			json.writeNumberField("id", rs.getLong("id"));
+			json.writeStringField("fileName", rs.getString("file_name"));
+			json.writeStringField("language", rs.getString("language"));
+			Timestamp createdAt = rs.getTimestamp("created_at");
+			json.writeStringField("createdAt", createdAt != null ? createdAt.toLocalDateTime().toString() : null);
+			json.writeStringField("contentHash", rs.getString("content_hash"));
+			json.writeStringField("ngramConfig", ngramConfig);
+			if (vector != null) {
+				json.writeNumberField("norm", vector.norm());
+				json.writeFieldName("codes");
+				json.writeArray(vector.codes(), 0, vector.size());
+				json.writeFieldName("counts");
+				json.writeArray(vector.counts(), 0, vector.size());
+			}
+			json.writeEndObject();
+			json.writeRaw('\n');
+		}
+
+		@Override
+		public void flush() throws IOException {
+			json.flush();
+		}
+
+		@Override
+		public void finish() throws IOException {
+			json.flush();
+		}
+	}
+
+	private static final class BinaryWriter implements RowWriter {
+
+		private final DataOutputStream data;
+
+		BinaryWriter(OutputStream out) throws IOException {
+			this.data = new DataOutputStream(new BufferedOutputStream(out, 64 * 1024));
+			data.writeInt(BINARY_MAGIC);
+		}
+
+		@Override
+		public void write(ResultSet rs) throws SQLException, IOException {
+			String ngramConfig = rs.getString("ngram_config");
+			TrigramVector vector = vector(rs, ngramConfig);
+			Timestamp createdAt = rs.getTimestamp("created_at");
+
+			data.writeLong(rs.getLong("id"));
+			data.writeUTF(nullToEmpty(rs.getString("file_name")));
+			data.writeUTF(nullToEmpty(rs.getString("language")));
+			data.writeLong(createdAt != null ? createdAt.toLocalDateTime().toInstant(ZoneOffset.UTC).toEpochMilli() : 0);
+			data.writeUTF(nullToEmpty(rs.getString("content_hash")));
+			data.writeUTF(nullToEmpty(ngramConfig));
+			data.writeDouble(vector != null ? vector.norm() : 0);
+			byte[] bytes = vector != null ? vector.toBytes() : new byte[0];
+			data.writeInt(bytes.length);
+			data.write(bytes);
+		}
+
+		@Override
+		public void flush() throws IOException {
+			data.flush();
+		}
+
+		@Override
+		public void finish() throws IOException {
+			data.writeLong(-1);
+			data.flush();
+		}
+
+		private static String nullToEmpty(String s) {
+			return s != null ? s : "";
+		}
+	}
+}
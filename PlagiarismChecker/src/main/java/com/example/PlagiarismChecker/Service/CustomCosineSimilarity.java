@@ -11,28 +11,99 @@ public class CustomCosineSimilarity {
             return 0.0;
         }
 
+        return cosineSimilarity(vector1, norm(vector1), vector2, norm(vector2));
+    }
+
+    /**
+     * Cosine with norms supplied by the caller (e.g. the stored trigram_norm
+     * column). Only the smaller map is iterated, so the work is bounded by the
+     * keys the two vectors can possibly share.
+     */
+    public double cosineSimilarity(Map<String, Integer> vector1, double norm1, Map<String, Integer> vector2,
+            double norm2) {
+        if (vector1 == null || vector2 == null || vector1.isEmpty() || vector2.isEmpty()) {
+            return 0.0;
+        }
+
+        if (norm1 == 0.0 || norm2 == 0.0) {
+            return 0.0;
+        }
+
+        Map<String, Integer> smaller = vector1.size() <= vector2.size() ? vector1 : vector2;
+        Map<String, Integer> larger = smaller == vector1 ? vector2 : vector1;
+
         double dotProduct = 0.0;
-        double norm1 = 0.0;
-        double norm2 = 0.0;
-
-        for (Map.Entry<String, Integer> e1 : vector1.entrySet()) {
-            String key = e1.getKey();
-            int v1 = e1.getValue();
-            norm1 += (long) v1 * v1;  // prevent overflow
-            Integer v2 = vector2.get(key);
-            if (v2 != null) {
-                dotProduct += (long) v1 * v2;
+        for (Map.Entry<String, Integer> e : smaller.entrySet()) {
+            Integer other = larger.get(e.getKey());
+            if (other != null) {
+                dotProduct += (long) e.getValue() * other;  // prevent overflow
             }
         }
 
-        for (Integer v2 : vector2.values()) {
-            norm2 += (long) v2 * v2;
+        return dotProduct / (norm1 * norm2);
+    }
+
+    public static double norm(Map<String, Integer> vector) {
+        long sumOfSquares = 0;
+        for (Integer v : vector.values()) {
+            sumOfSquares += (long) v * v;
         }
+        return Math.sqrt(sumOfSquares);
+    }
 
+    /**
+     * Upper bound on the cosine of two count vectors from their stored norms
+     * and distinct trigram counts alone. At most min(count1, count2) trigrams
+     * can be shared, and every unshared trigram contributes at least 1 to its
+     * vector's squared norm, which caps the fraction of that norm the dot
+     * product can reach.
+     */
+    public static double upperBound(int count1, double norm1, int count2, double norm2) {
         if (norm1 == 0.0 || norm2 == 0.0) {
             return 0.0;
         }
+        double bound1 = 1.0 - Math.max(0, count1 - count2) / (norm1 * norm1);
+        double bound2 = 1.0 - Math.max(0, count2 - count1) / (norm2 * norm2);
+        return Math.sqrt(Math.max(0.0, Math.min(bound1, bound2)));
+    }
 
-        return dotProduct / (Math.sqrt(norm1) * Math.sqrt(norm2));
+    /**
+     * Cosine over compact vectors: a linear merge-join of the two sorted code
+     * arrays, with both norms taken from the vectors instead of recomputed.
+     */
+    public double cosineSimilarity(TrigramVector vector1, TrigramVector vector2) {
+        if (vector1 == null || vector2 == null || vector1.isEmpty() || vector2.isEmpty()) {
+            return 0.0;
+        }
+
+        double norms = vector1.norm() * vector2.norm();
+        if (norms == 0.0) {
+            return 0.0;
+        }
+
+        return dotProduct(vector1, vector2) / norms;
+    }
+
+    public long dotProduct(TrigramVector vector1, TrigramVector vector2) {
+        int[] codes1 = vector1.codes();
+        int[] counts1 = vector1.counts();
+        int[] codes2 = vector2.codes();
+        int[] counts2 = vector2.counts();
+
+        long dotProduct = 0;
+        int i = 0;
+        int j = 0;
+        while (i < codes1.length && j < codes2.length) {
+            int c1 = codes1[i];
+            int c2 = codes2[j];
+            if (c1 == c2) {
+                dotProduct += (long) counts1[i++] * counts2[j++];
+            } else if (c1 < c2) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return dotProduct;
     }
-}
\ No newline at end of file
+}
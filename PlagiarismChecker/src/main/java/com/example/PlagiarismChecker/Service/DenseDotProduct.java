@@ -0,0 +1,27 @@
+package com.example.PlagiarismChecker.Service;
+
+/**
+ * Float dot product that runs on the JDK Vector API when the incubator module
+ * is available (--add-modules jdk.incubator.vector) and falls back to a plain
+ * loop otherwise, so a missing JVM flag degrades speed instead of failing.
+ */
+public final class DenseDotProduct {
+
+    public static final boolean SIMD_AVAILABLE = ModuleLayer.boot()
+            .findModule("jdk.incubator.vector")
+            .isPresent();
+
+    private DenseDotProduct() {
+    }
+
+    public static float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        if (SIMD_AVAILABLE) {
+            return SimdDotProduct.dot(a, aOffset, b, bOffset, length);
+        }
+        float result = 0f;
+        for (int i = 0; i < length; i++) {
+            result += a[aOffset + i] * b[bOffset + i];
+        }
+        return result;
+    }
+}
@@ -0,0 +1,251 @@
+package com.example.PlagiarismChecker.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Approximate similarity engine: every file is projected into a fixed-width
+ * dense float vector by signed feature hashing of its trigram codes and
+ * L2-normalized, so cosine similarity is a plain dot product. Rows live in
+ * contiguous float[] chunks and compare-all is a brute-force scan that is
+ * bound by memory bandwidth rather than hash lookups.
+ *
+ * Memory is dimensions * 4 bytes per file (16 KB at 4096 dimensions), so the
+ * engine is off unless plagiarism.dense.enabled is set: files are then not
+ * projected at all and engine=DENSE is rejected. Rows of removed files are
+ * reused by the next additions.
+ */
+@Component
+public class DenseVectorIndex {
+
+	private static final Logger logger = LoggerFactory.getLogger(DenseVectorIndex.class);
+
+	private static final int ROWS_PER_CHUNK = 256;
+
+	private final boolean enabled;
+
+	private final int dimensions;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private final List<float[]> chunks = new ArrayList<>();
+
+	private final Map<Long, Integer> slotsByFileId = new HashMap<>();
+
+	private long[] fileIds = new long[1024];
+
+	private String[] fileNames = new String[1024];
+
+	private String[] languages = new String[1024];
+
+	private boolean[] live = new boolean[1024];
+
+	/** Slots of removed files, handed out again before the matrix grows */
+	private final Deque<Integer> freeSlots = new ArrayDeque<>();
+
+	private int nextSlot = 0;
+
+	public DenseVectorIndex(@Value("${plagiarism.dense.enabled:false}") boolean enabled,
+			@Value("${plagiarism.dense.dimensions:4096}") int dimensions) {
+		if (dimensions <= 0 || Integer.bitCount(dimensions) != 1) {
+			throw new IllegalArgumentException("plagiarism.dense.dimensions must be a power of two: " + dimensions);
+		}
+		this.enabled = enabled;
+		this.dimensions = dimensions;
+		if (enabled) {
+			logger.info("Dense vector engine: {} dimensions, SIMD {}", dimensions,
+					DenseDotProduct.SIMD_AVAILABLE ? "enabled" : "unavailable (scalar fallback)");
+		}
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Signed feature hashing: each trigram code picks a bucket and a sign from
+	 * one mixed hash, then the result is scaled to unit length.
+	 */
+	public float[] project(TrigramVector vector) {
+		float[] dense = new float[dimensions];
+		int[] codes = vector.codes();
+		int[] counts = vector.counts();
+		for (int i = 0; i < codes.length; i++) {
+			int hash = mix(codes[i]);
+			int bucket = hash & (dimensions - 1);
+			dense[bucket] += (hash < 0) ? -counts[i] : counts[i];
+		}
+
+		double sumOfSquares = 0;
+		for (float value : dense) {
+			sumOfSquares += value * value;
+		}
+		if (sumOfSquares > 0) {
+			float scale = (float) (1.0 / Math.sqrt(sumOfSquares));
+			for (int i = 0; i < dense.length; i++) {
+				dense[i] *= scale;
+			}
+		}
+		return dense;
+	}
+
+	/**
+	 * Approximate cosine of two vectors as a fraction in [0, 1].
+	 */
+	public double similarity(TrigramVector vector1, TrigramVector vector2) {
+		requireEnabled();
+		if (vector1 == null || vector2 == null || vector1.isEmpty() || vector2.isEmpty()) {
+			return 0.0;
+		}
+		return clamp(DenseDotProduct.dot(project(vector1), 0, project(vector2), 0, dimensions));
+	}
+
+	public void add(Long fileId, String fileName, String language, TrigramVector vector) {
+		if (!enabled || fileId == null || vector == null || vector.isEmpty()) {
+			return;
+		}
+		float[] dense = project(vector);
+
+		lock.writeLock().lock();
+		try {
+			Integer existing = slotsByFileId.get(fileId);
+			int slot = existing != null ? existing : !freeSlots.isEmpty() ? freeSlots.pop() : nextSlot++;
+			if (slot == fileIds.length) {
+				int capacity = fileIds.length * 2;
+				fileIds = Arrays.copyOf(fileIds, capacity);
+				fileNames = Arrays.copyOf(fileNames, capacity);
+				languages = Arrays.copyOf(languages, capacity);
+				live = Arrays.copyOf(live, capacity);
+			}
+			if (slot / ROWS_PER_CHUNK == chunks.size()) {
+				chunks.add(new float[ROWS_PER_CHUNK * dimensions]);
+			}
+
+			System.arraycopy(dense, 0, chunks.get(slot / ROWS_PER_CHUNK), (slot % ROWS_PER_CHUNK) * dimensions,
+					dimensions);
+			fileIds[slot] = fileId;
+			fileNames[slot] = fileName;
+			languages[slot] = language;
+			live[slot] = true;
+			slotsByFileId.put(fileId, slot);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void remove(Long fileId) {
+		lock.writeLock().lock();
+		try {
+			Integer slot = slotsByFileId.remove(fileId);
+			if (slot != null) {
+				live[slot] = false;
+				fileNames[slot] = null;
+				languages[slot] = null;
+				freeSlots.push(slot);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void clear() {
+		lock.writeLock().lock();
+		try {
+			chunks.clear();
+			slotsByFileId.clear();
+			fileIds = new long[1024];
+			fileNames = new String[1024];
+			languages = new String[1024];
+			live = new boolean[1024];
+			freeSlots.clear();
+			nextSlot = 0;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Brute-force top-K over every row of the matrix.
+	 *
+	 * @param minSimilarity minimum similarity as a percentage
+	 */
+	public TopMatches topMatches(TrigramVector query, Long excludeFileId, String language, double minSimilarity,
+			int limit) {
+		requireEnabled();
+		if (query == null || query.isEmpty() || limit <= 0) {
+			return new TopMatches(List.of(), 0);
+		}
+		float[] queryRow = project(query);
+
+		PriorityQueue<SimilarityResult> best = new PriorityQueue<>(
+				Comparator.comparingDouble(SimilarityResult::getSimilarity));
+		long total = 0;
+
+		lock.readLock().lock();
+		try {
+			for (int slot = 0; slot < nextSlot; slot++) {
+				if (!live[slot] || (excludeFileId != null && fileIds[slot] == excludeFileId)) {
+					continue;
+				}
+				if (language != null && !language.equals(languages[slot])) {
+					continue;
+				}
+
+				double similarity = clamp(DenseDotProduct.dot(queryRow, 0, chunks.get(slot / ROWS_PER_CHUNK),
+						(slot % ROWS_PER_CHUNK) * dimensions, dimensions)) * 100;
+				if (similarity <= 0 || similarity < minSimilarity) {
+					continue;
+				}
+
+				total++;
+				if (best.size() < limit) {
+					best.add(new SimilarityResult(fileIds[slot], fileNames[slot], languages[slot], similarity));
+				} else if (similarity > best.peek().getSimilarity()) {
+					best.poll();
+					best.add(new SimilarityResult(fileIds[slot], fileNames[slot], languages[slot], similarity));
+				}
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+
+		List<SimilarityResult> ranked = new ArrayList<>(best);
+		ranked.sort(Comparator.comparingDouble(SimilarityResult::getSimilarity).reversed());
+		return new TopMatches(ranked, total);
+	}
+
+	private void requireEnabled() {
+		if (!enabled) {
+			throw new IllegalArgumentException("The DENSE engine is disabled (plagiarism.dense.enabled=false)");
+		}
+	}
+
+	/**
+	 * Signed hashing can push unrelated files slightly below zero; cosine of
+	 * count vectors cannot be negative, so report those as 0.
+	 */
+	private static double clamp(float dot) {
+		return Math.max(0.0, Math.min(1.0, dot));
+	}
+
+	private static int mix(int code) {
+		int h = code * 0x9E3779B1;
+		h ^= h >>> 15;
+		h *= 0x85EBCA77;
+		return h ^ (h >>> 13);
+	}
+}
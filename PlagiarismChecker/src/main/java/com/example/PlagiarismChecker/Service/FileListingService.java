@@ -0,0 +1,124 @@
+package com.example.PlagiarismChecker.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import com.example.PlagiarismChecker.DTO.CodeFileListing;
+import com.example.PlagiarismChecker.DTO.CursorPage;
+import com.example.PlagiarismChecker.Repository.CodeFileRepository;
+
+/**
+ * Keyset pagination of the file listing, ordered by (created_at, id). The
+ * continuation token carries the position of the last row returned, so a
+ * page is one index range scan however deep it is. Totals are optional and
+ * come from a short-lived cache: the planner's row estimate for the whole
+ * table, an exact count per language.
+ */
+@Service
+public class FileListingService {
+
+	private static final Logger logger = LoggerFactory.getLogger(FileListingService.class);
+
+	private static final String TOKEN_VERSION = "v1";
+
+	/** Position before every row, for the first page */
+	private static final LocalDateTime START = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+	private static final int MAX_PAGE_SIZE = 1000;
+
+	@Autowired
+	private CodeFileRepository codeFileRepository;
+
+	@Value("${plagiarism.listing.count-ttl-seconds:60}")
+	private long countTtlSeconds;
+
+	private final Map<String, CachedCount> counts = new ConcurrentHashMap<>();
+
+	/**
+	 * @param language upper-cased filter, or null for all files
+	 * @param token    continuation token of the previous page, or null for the first
+	 * @throws IllegalArgumentException for a malformed token or page size
+	 */
+	public CursorPage<CodeFileListing> page(String language, String token, int size, boolean withTotal) {
+		if (size <= 0 || size > MAX_PAGE_SIZE) {
+			throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+		}
+		String normalizedLanguage = language != null && !language.isBlank() ? language.toUpperCase() : null;
+
+		LocalDateTime createdAt = START;
+		long id = 0;
+		if (token != null && !token.isBlank()) {
+			Cursor cursor = decode(token);
+			createdAt = cursor.createdAt();
+			id = cursor.id();
+		}
+
+		// One extra row tells whether there is a next page
+		List<CodeFileListing> rows = normalizedLanguage != null
+				? codeFileRepository.findPageAfterInLanguage(normalizedLanguage, createdAt, id, Limit.of(size + 1))
+				: codeFileRepository.findPageAfter(createdAt, id, Limit.of(size + 1));
+		String nextToken = null;
+		if (rows.size() > size) {
+			rows = rows.subList(0, size);
+			CodeFileListing last = rows.get(size - 1);
+			nextToken = encode(last.getCreatedAt(), last.getId());
+		}
+
+		return new CursorPage<>(rows, nextToken, withTotal ? approximateCount(normalizedLanguage) : null);
+	}
+
+	private long approximateCount(String language) {
+		String key = language != null ? language : "";
+		long now = System.currentTimeMillis();
+		CachedCount cached = counts.get(key);
+		if (cached != null && now - cached.computedAt() < countTtlSeconds * 1000) {
+			return cached.count();
+		}
+
+		long count = language == null ? codeFileRepository.estimateRowCount() : -1;
+		if (count < 0) {
+			// Filtered, or the table has never been analyzed
+			count = codeFileRepository.countByLanguage(language);
+		}
+		counts.put(key, new CachedCount(count, now));
+		logger.debug("Refreshed file count for {}: {}", language != null ? language : "all languages", count);
+		return count;
+	}
+
+	private static String encode(LocalDateTime createdAt, long id) {
+		String raw = TOKEN_VERSION + "|" + createdAt + "|" + id;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static Cursor decode(String token) {
+		try {
+			String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+			String[] parts = raw.split("\\|");
+			if (parts.length != 3 || !TOKEN_VERSION.equals(parts[0])) {
+				throw new IllegalArgumentException("Invalid page token");
+			}
+			return new Cursor(LocalDateTime.parse(parts[1]), Long.parseLong(parts[2]));
+		} catch (DateTimeParseException | IllegalArgumentException e) {
+			// NumberFormatException and Base64 errors are IllegalArgumentExceptions too
+			throw new IllegalArgumentException("Invalid page token", e);
+		}
+	}
+
+	private record Cursor(LocalDateTime createdAt, long id) {
+	}
+
+	private record CachedCount(long count, long computedAt) {
+	}
+}
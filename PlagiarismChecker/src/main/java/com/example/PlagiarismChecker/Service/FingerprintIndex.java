@@ -0,0 +1,268 @@
+package com.example.PlagiarismChecker.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Inverted index from winnowing fingerprint hash to the files containing it.
+ * Scores are the containment |Q ∩ F| / |Q| of the query file's distinct
+ * fingerprints Q in another file's F, so a function copied into a much larger
+ * file still scores high instead of being diluted by the rest of that file,
+ * while a small file only scores its share of the query. Files with fewer than
+ * min-fingerprints distinct fingerprints carry too little signal and are not
+ * scored at all, as query or as match.
+ *
+ * As in {@link TrigramIndex}, slots of removed files are reused and every
+ * file remembers its position in each of its posting lists, so removal is a
+ * swap with the last posting.
+ */
+@Component
+public class FingerprintIndex {
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private final Map<Integer, PostingList> postings = new HashMap<>();
+
+	private final Map<Long, Integer> slotsByFileId = new HashMap<>();
+
+	private final Deque<Integer> freeSlots = new ArrayDeque<>();
+
+	private IndexedFile[] files = new IndexedFile[1024];
+
+	private int nextSlot = 0;
+
+	@Value("${plagiarism.winnowing.min-fingerprints:10}")
+	private int minFingerprints;
+
+	public void add(Long fileId, String fileName, String language, WinnowingFingerprints fingerprints) {
+		if (fileId == null || fingerprints == null || fingerprints.isEmpty()) {
+			return;
+		}
+		int[] distinct = fingerprints.distinctHashes();
+
+		lock.writeLock().lock();
+		try {
+			removeLocked(fileId);
+
+			int slot = !freeSlots.isEmpty() ? freeSlots.pop() : nextSlot++;
+			if (slot == files.length) {
+				files = Arrays.copyOf(files, files.length * 2);
+			}
+			int[] positions = new int[distinct.length];
+			for (int i = 0; i < distinct.length; i++) {
+				positions[i] = postings.computeIfAbsent(distinct[i], h -> new PostingList()).add(slot, i);
+			}
+			files[slot] = new IndexedFile(fileId, fileName, language, distinct, positions);
+			slotsByFileId.put(fileId, slot);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void remove(Long fileId) {
+		lock.writeLock().lock();
+		try {
+			removeLocked(fileId);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void clear() {
+		lock.writeLock().lock();
+		try {
+			postings.clear();
+			slotsByFileId.clear();
+			files = new IndexedFile[1024];
+			freeSlots.clear();
+			nextSlot = 0;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Containment of the first file's fingerprint set in the second's as a
+	 * fraction in [0, 1]; 0 when either has fewer than min-fingerprints.
+	 */
+	public double similarity(WinnowingFingerprints fingerprints1, WinnowingFingerprints fingerprints2) {
+		if (fingerprints1 == null || fingerprints2 == null) {
+			return 0.0;
+		}
+		int[] a = fingerprints1.distinctHashes();
+		int[] b = fingerprints2.distinctHashes();
+		if (a.length == 0 || b.length == 0 || a.length < minFingerprints || b.length < minFingerprints) {
+			return 0.0;
+		}
+		int shared = 0;
+		for (int i = 0, j = 0; i < a.length && j < b.length;) {
+			if (a[i] == b[j]) {
+				shared++;
+				i++;
+				j++;
+			} else if (a[i] < b[j]) {
+				i++;
+			} else {
+				j++;
+			}
+		}
+		return (double) shared / a.length;
+	}
+
+	/**
+	 * Top-K over every file sharing at least one fingerprint with the query,
+	 * by containment of the query in that file.
+	 *
+	 * @param minSimilarity minimum similarity as a percentage
+	 */
+	public TopMatches topMatches(WinnowingFingerprints query, Long excludeFileId, String language,
+			double minSimilarity, int limit) {
+		if (query == null || query.isEmpty() || limit <= 0) {
+			return new TopMatches(List.of(), 0);
+		}
+		int[] distinct = query.distinctHashes();
+		if (distinct.length < minFingerprints) {
+			return new TopMatches(List.of(), 0);
+		}
+
+		lock.readLock().lock();
+		try {
+			int[] shared = new int[nextSlot];
+			int[] touched = new int[Math.min(nextSlot, 1024)];
+			int touchedCount = 0;
+
+			for (int hash : distinct) {
+				PostingList list = postings.get(hash);
+				if (list == null) {
+					continue;
+				}
+				for (int p = 0; p < list.size; p++) {
+					int slot = list.slots[p];
+					if (shared[slot]++ == 0) {
+						if (touchedCount == touched.length) {
+							touched = Arrays.copyOf(touched, touched.length * 2);
+						}
+						touched[touchedCount++] = slot;
+					}
+				}
+			}
+
+			PriorityQueue<SimilarityResult> best = new PriorityQueue<>(
+					Comparator.comparingDouble(SimilarityResult::getSimilarity));
+			long total = 0;
+
+			for (int t = 0; t < touchedCount; t++) {
+				int slot = touched[t];
+				IndexedFile file = files[slot];
+				if (file == null || file.fileId.equals(excludeFileId) || file.hashes.length < minFingerprints) {
+					continue;
+				}
+				if (language != null && !language.equals(file.language)) {
+					continue;
+				}
+
+				double similarity = (double) shared[slot] / distinct.length * 100;
+				if (similarity < minSimilarity) {
+					continue;
+				}
+
+				total++;
+				if (best.size() < limit) {
+					best.add(new SimilarityResult(file.fileId, file.fileName, file.language, similarity));
+				} else if (similarity > best.peek().getSimilarity()) {
+					best.poll();
+					best.add(new SimilarityResult(file.fileId, file.fileName, file.language, similarity));
+				}
+			}
+
+			List<SimilarityResult> ranked = new ArrayList<>(best);
+			ranked.sort(Comparator.comparingDouble(SimilarityResult::getSimilarity).reversed());
+			return new TopMatches(ranked, total);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private void removeLocked(Long fileId) {
+		Integer slot = slotsByFileId.remove(fileId);
+		if (slot == null) {
+			return;
+		}
+
+		IndexedFile file = files[slot];
+		files[slot] = null;
+		freeSlots.push(slot);
+
+		for (int i = 0; i < file.hashes.length; i++) {
+			PostingList list = postings.get(file.hashes[i]);
+			int position = file.positions[i];
+			list.removeAt(position);
+			if (list.size == 0) {
+				postings.remove(file.hashes[i]);
+			} else if (position < list.size) {
+				files[list.slots[position]].positions[list.entries[position]] = position;
+			}
+		}
+	}
+
+	/**
+	 * @param positions position of this file in the posting list of each of
+	 *                  its hashes, parallel to hashes
+	 */
+	private record IndexedFile(Long fileId, String fileName, String language, int[] hashes, int[] positions) {
+	}
+
+	/**
+	 * Growable parallel arrays of (slot, index of the hash in that file),
+	 * unordered.
+	 */
+	private static final class PostingList {
+
+		private int[] slots = new int[2];
+
+		private int[] entries = new int[2];
+
+		private int size = 0;
+
+		/**
+		 * @return position of the new posting
+		 */
+		int add(int slot, int entry) {
+			if (size == slots.length) {
+				resize(size * 2);
+			}
+			slots[size] = slot;
+			entries[size] = entry;
+			return size++;
+		}
+
+		/**
+		 * Moves the last posting into the given position.
+		 */
+		void removeAt(int position) {
+			size--;
+			slots[position] = slots[size];
+			entries[position] = entries[size];
+			if (slots.length > 16 && size < slots.length / 4) {
+				resize(slots.length / 2);
+			}
+		}
+
+		private void resize(int length) {
+			slots = Arrays.copyOf(slots, length);
+			entries = Arrays.copyOf(entries, length);
+		}
+	}
+}
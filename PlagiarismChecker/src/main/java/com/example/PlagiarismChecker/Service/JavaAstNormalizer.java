@@ -0,0 +1,229 @@
+package com.example.PlagiarismChecker.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.ImportDeclaration;
+import com.github.javaparser.ast.Modifier;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.PackageDeclaration;
+import com.github.javaparser.ast.comments.Comment;
+import com.github.javaparser.ast.expr.AnnotationExpr;
+import com.github.javaparser.ast.expr.AssignExpr;
+import com.github.javaparser.ast.expr.BinaryExpr;
+import com.github.javaparser.ast.expr.Name;
+import com.github.javaparser.ast.expr.SimpleName;
+import com.github.javaparser.ast.expr.UnaryExpr;
+import com.github.javaparser.ast.type.PrimitiveType;
+
+/**
+ * Structural normalization of Java sources: the file is parsed with
+ * JavaParser and the AST is emitted in pre-order as one token per node kind.
+ * Every identifier becomes "id" and every literal its literal kind, so copies
+ * with renamed variables or changed constants produce the same stream, while
+ * operators and primitive types are kept. Package, imports, annotations,
+ * modifiers and comments are dropped.
+ *
+ * Parsers are not thread-safe, so a fixed pool of them bounds the number of
+ * concurrent parses; when none frees up within the wait the caller falls back
+ * to the lexical {@link CodeNormalizer}, as it does for sources that do not
+ * parse. Results are kept in an LRU keyed by the SHA-256 of the raw source,
+ * so the same upload is never parsed twice.
+ *
+ * Output uses the same [a-z_ ] alphabet as the lexical normalizer.
+ */
+@Component
+public class JavaAstNormalizer {
+
+	private static final Logger logger = LoggerFactory.getLogger(JavaAstNormalizer.class);
+
+	private final boolean enabled;
+
+	private final long parseWaitMillis;
+
+	private final BlockingQueue<JavaParser> parsers;
+
+	private final Map<String, Parsed> cache;
+
+	/** Derived token per node class, e.g. MethodCallExpr -> method_call */
+	private final Map<Class<?>, String> kindTokens = new ConcurrentHashMap<>();
+
+	public JavaAstNormalizer(@Value("${plagiarism.java.ast.enabled:false}") boolean enabled,
+			@Value("${plagiarism.java.ast.parsers:4}") int parserCount,
+			@Value("${plagiarism.java.ast.parse-wait-ms:2000}") long parseWaitMillis,
+			@Value("${plagiarism.java.ast.cache-size:1024}") int cacheSize) {
+		this.enabled = enabled;
+		this.parseWaitMillis = parseWaitMillis;
+
+		this.parsers = new ArrayBlockingQueue<>(parserCount);
+		for (int i = 0; i < parserCount; i++) {
+			parsers.add(new JavaParser(new ParserConfiguration()
+					.setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_21)
+					.setAttributeComments(false)));
+		}
+
+		this.cache = Collections.synchronizedMap(new LinkedHashMap<>(cacheSize, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Parsed> eldest) {
+				return size() > cacheSize;
+			}
+		});
+
+		logger.info("Java AST normalization {} ({} parsers)", enabled ? "enabled" : "disabled", parserCount);
+	}
+
+	public boolean handles(String language) {
+		return enabled && "JAVA".equalsIgnoreCase(language);
+	}
+
+	/**
+	 * @return the structural token stream, or null if the source does not
+	 *         parse or no parser became free in time
+	 */
+	public String normalize(String source) {
+		if (source == null || source.isBlank()) {
+			return null;
+		}
+
+		String key = sha256(source);
+		Parsed cached = cache.get(key);
+		if (cached != null) {
+			return cached.tokens();
+		}
+
+		JavaParser parser;
+		try {
+			parser = parsers.poll(parseWaitMillis, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		}
+		if (parser == null) {
+			logger.warn("No Java parser free within {}ms, using lexical normalization", parseWaitMillis);
+			return null;
+		}
+
+		ParseResult<CompilationUnit> result;
+		try {
+			result = parser.parse(source);
+		} finally {
+			parsers.add(parser);
+		}
+
+		// Unparseable sources are cached too, so they go straight to the fallback next time
+		String tokens = result.isSuccessful() && result.getResult().isPresent()
+				? tokenStream(result.getResult().get())
+				: null;
+		if (tokens == null) {
+			logger.debug("Java source does not parse: {}", result.getProblems());
+		}
+		cache.put(key, new Parsed(tokens));
+		return tokens;
+	}
+
+	/**
+	 * Pre-order walk with an explicit stack, so deeply nested expressions
+	 * cannot overflow the thread stack.
+	 */
+	private String tokenStream(CompilationUnit unit) {
+		StringBuilder tokens = new StringBuilder();
+		Deque<Node> pending = new ArrayDeque<>();
+		pushChildren(pending, unit);
+
+		while (!pending.isEmpty()) {
+			Node node = pending.pop();
+			if (node instanceof PackageDeclaration || node instanceof ImportDeclaration
+					|| node instanceof AnnotationExpr || node instanceof Modifier || node instanceof Comment) {
+				continue;
+			}
+			if (tokens.length() > 0) {
+				tokens.append(' ');
+			}
+			tokens.append(token(node));
+			pushChildren(pending, node);
+		}
+		return tokens.toString();
+	}
+
+	private static void pushChildren(Deque<Node> pending, Node node) {
+		List<Node> children = node.getChildNodes();
+		for (int i = children.size() - 1; i >= 0; i--) {
+			pending.push(children.get(i));
+		}
+	}
+
+	private String token(Node node) {
+		if (node instanceof SimpleName || node instanceof Name) {
+			return "id";
+		}
+		if (node instanceof BinaryExpr binary) {
+			return binary.getOperator().name().toLowerCase();
+		}
+		if (node instanceof UnaryExpr unary) {
+			return unary.getOperator().name().toLowerCase();
+		}
+		if (node instanceof AssignExpr assign) {
+			return assign.getOperator() == AssignExpr.Operator.ASSIGN ? "assign"
+					: "assign_" + assign.getOperator().name().toLowerCase();
+		}
+		if (node instanceof PrimitiveType primitive) {
+			return primitive.getType().name().toLowerCase();
+		}
+		return kindTokens.computeIfAbsent(node.getClass(), JavaAstNormalizer::kindToken);
+	}
+
+	/** Simple class name without the Expr / Stmt suffix, in snake case */
+	private static String kindToken(Class<?> type) {
+		String name = type.getSimpleName();
+		if (name.endsWith("Expr") || name.endsWith("Stmt")) {
+			name = name.substring(0, name.length() - 4);
+		}
+		StringBuilder token = new StringBuilder(name.length() + 4);
+		for (int i = 0; i < name.length(); i++) {
+			char c = name.charAt(i);
+			if (Character.isUpperCase(c)) {
+				if (i > 0) {
+					token.append('_');
+				}
+				token.append(Character.toLowerCase(c));
+			} else {
+				token.append(c);
+			}
+		}
+		return token.toString();
+	}
+
+	private static String sha256(String source) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			return HexFormat.of().formatHex(digest.digest(source.getBytes(StandardCharsets.UTF_8)));
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException("SHA-256 algorithm not available", e);
+		}
+	}
+
+	/** Cached parse outcome; tokens is null for sources that did not parse */
+	private record Parsed(String tokens) {
+	}
+}
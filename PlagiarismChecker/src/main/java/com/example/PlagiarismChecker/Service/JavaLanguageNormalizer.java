@@ -0,0 +1,68 @@
+package com.example.PlagiarismChecker.Service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.List;
+
+/**
+ * Java normalization: the structural token stream of
+ * {@link JavaAstNormalizer} when AST mode is on and the source parses, the
+ * lexical one otherwise.
+ */
+public class JavaLanguageNormalizer extends LexicalLanguageNormalizer {
+
+	private final JavaAstNormalizer astNormalizer;
+
+	public JavaLanguageNormalizer(CodeNormalizer lexer, JavaAstNormalizer astNormalizer, List<String> keywords) {
+		super(lexer, "JAVA", List.of(".java"), new CodeNormalizer.Syntax(true, false, false, "\"'", "", "", true),
+				keywords);
+		this.astNormalizer = astNormalizer;
+	}
+
+	@Override
+	public String normalize(String content) {
+		if (astNormalizer.handles(language())) {
+			String tokens = astNormalizer.normalize(content);
+			if (tokens != null) {
+				return tokens;
+			}
+		}
+		return super.normalize(content);
+	}
+
+	@Override
+	public void normalize(Reader reader, long maxChars, CodeNormalizer.Sink sink) throws IOException {
+		if (!astNormalizer.handles(language())) {
+			super.normalize(reader, maxChars, sink);
+			return;
+		}
+
+		// Parsing needs the whole source, so Java uploads are buffered in AST mode
+		String source = readBounded(reader, maxChars);
+		String tokens = astNormalizer.normalize(source);
+		if (tokens != null) {
+			sink.accept(tokens.toCharArray(), 0, tokens.length());
+			// Renamed copies share the token stream, so duplicates are told apart by the lexical text
+			CodeNormalizer.Sink lexical = sink.lexical();
+			if (lexical != null) {
+				super.normalize(new StringReader(source), maxChars, lexical);
+			}
+		} else {
+			super.normalize(new StringReader(source), maxChars, sink);
+		}
+	}
+
+	private static String readBounded(Reader reader, long maxChars) throws IOException {
+		StringBuilder source = new StringBuilder();
+		char[] chunk = new char[8192];
+		int read;
+		while ((read = reader.read(chunk)) != -1) {
+			if (source.length() + read > maxChars) {
+				throw new IllegalArgumentException("File size exceeds the limit of " + maxChars + " characters");
+			}
+			source.append(chunk, 0, read);
+		}
+		return source.toString();
+	}
+}
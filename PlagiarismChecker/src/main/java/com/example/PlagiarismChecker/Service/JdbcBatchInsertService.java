@@ -9,13 +9,27 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.springframework.jdbc.core.ConnectionCallback;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
 
 
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -27,6 +41,7 @@ public class JdbcBatchInsertService {
 
 	private static final Logger logger = LoggerFactory.getLogger(JdbcBatchInsertService.class);
 	private static final int BATCH_SIZE = 100;
+	private static final int COPY_BUFFER_SIZE = 64 * 1024;
 
 	@Autowired
 	private JdbcTemplate jdbcTemplate;
@@ -103,8 +118,8 @@ public class JdbcBatchInsertService {
 
 	    String sql = """
 	        INSERT INTO code_files
-	        (id, file_name, content, language, created_at, content_hash, trigrams_generated)
-	        VALUES (nextval('code_file_sequence'), ?, ?, ?, ?, ?, false)
+	        (id, file_name, content_deflated, language, created_at, content_hash, normalization, trigrams_generated)
+	        VALUES (nextval('code_file_sequence'), ?, ?, ?, ?, ?, ?, false)
 	        ON CONFLICT (content_hash) DO NOTHING
 	        """;
 
@@ -116,10 +131,11 @@ public class JdbcBatchInsertService {
 	        BATCH_SIZE,
 	        (ps, cf) -> {
 	            ps.setString(1, cf.getFileName());
-	            ps.setString(2, cf.getContent());
+	            ps.setBytes(2, cf.getCompressedContent());
 	            ps.setString(3, cf.getLanguage());
 	            ps.setTimestamp(4, Timestamp.valueOf(cf.getCreatedAt()));
 	            ps.setString(5, cf.getContentHash());
+	            ps.setString(6, cf.getNormalization());
 	        }
 	    );
 
@@ -142,8 +158,8 @@ public class JdbcBatchInsertService {
 
 	    String sql = """
 	        INSERT INTO code_files
-	        (id, file_name, content, language, created_at, content_hash, trigrams_generated)
-	        VALUES (nextval('code_file_sequence'), ?, ?, ?, ?, ?, false)
+	        (id, file_name, content_deflated, language, created_at, content_hash, normalization, trigrams_generated)
+	        VALUES (nextval('code_file_sequence'), ?, ?, ?, ?, ?, ?, false)
 	        ON CONFLICT (content_hash) DO NOTHING
 	        RETURNING content_hash
 	        """;
@@ -157,10 +173,11 @@ public class JdbcBatchInsertService {
 
 	                for (CodeFile cf : codeFiles) {
 	                    ps.setString(1, cf.getFileName());
-	                    ps.setString(2, cf.getContent());
+	                    ps.setBytes(2, cf.getCompressedContent());
 	                    ps.setString(3, cf.getLanguage());
 	                    ps.setTimestamp(4, Timestamp.valueOf(cf.getCreatedAt()));
 	                    ps.setString(5, cf.getContentHash());
+	                    ps.setString(6, cf.getNormalization());
 	                    ps.addBatch();
 	                }
 
@@ -184,46 +201,246 @@ public class JdbcBatchInsertService {
 
 
 	/**
-	 * Bulk insert with trigram vectors Used when trigrams are already generated
+	 * Bulk insert of fully prepared files (vector, norm, signature and
+	 * fingerprints already set), so rows are never stored with
+	 * trigrams_generated = false. Each chunk is one multi-row INSERT whose
+	 * RETURNING clause hands back the generated ids; files whose content hash
+	 * already exists are skipped.
+	 *
+	 * @return generated id by content hash, for the files actually inserted
 	 */
 	@Transactional
-	public int[][] batchInsertWithTrigrams(List<CodeFile> codeFiles) {
-		String sql = "INSERT INTO code_files " + "(id, file_name, content, language, created_at, content_hash, "
-				+ "trigram_vector, trigrams_generated) "
-				+ "VALUES (nextval('code_file_sequence'), ?, ?, ?, ?, ?, ?::jsonb, true)";
-
-		return jdbcTemplate.batchUpdate(sql, codeFiles, BATCH_SIZE, (PreparedStatement ps, CodeFile codeFile) -> {
-			ps.setString(1, codeFile.getFileName());
-			ps.setString(2, codeFile.getContent());
-			ps.setString(3, codeFile.getLanguage());
-			ps.setTimestamp(4, Timestamp.valueOf(codeFile.getCreatedAt()));
-			ps.setString(5, codeFile.getContentHash());
-
-			// Convert Map to JSON string
-			String trigramJson = convertMapToJson(codeFile.Gettrigram_vector());
-			ps.setString(6, trigramJson);
+	public Map<String, Long> batchInsertWithTrigrams(List<CodeFile> codeFiles) {
+		Map<String, Long> insertedIds = new HashMap<>();
+		long start = System.currentTimeMillis();
+
+		for (int from = 0; from < codeFiles.size(); from += BATCH_SIZE) {
+			List<CodeFile> chunk = codeFiles.subList(from, Math.min(from + BATCH_SIZE, codeFiles.size()));
+
+			StringBuilder sql = new StringBuilder("INSERT INTO code_files "
+					+ "(id, file_name, content_deflated, language, created_at, content_hash, "
+					+ "trigram_codes, trigram_set, trigram_norm, trigram_count, minhash_signature, fingerprints, ngram_config, "
+					+ "normalization, trigrams_generated) VALUES ");
+			for (int i = 0; i < chunk.size(); i++) {
+				sql.append(i == 0 ? "" : ", ")
+						.append("(nextval('code_file_sequence'), ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, true)");
+			}
+			sql.append(" ON CONFLICT (content_hash) DO NOTHING RETURNING id, content_hash");
+
+			jdbcTemplate.query(con -> {
+				PreparedStatement ps = con.prepareStatement(sql.toString());
+				int p = 1;
+				for (CodeFile codeFile : chunk) {
+					ps.setString(p++, codeFile.getFileName());
+					ps.setBytes(p++, codeFile.getCompressedContent());
+					ps.setString(p++, codeFile.getLanguage());
+					ps.setTimestamp(p++, Timestamp.valueOf(codeFile.getCreatedAt()));
+					ps.setString(p++, codeFile.getContentHash());
+					ps.setBytes(p++, codeFile.getTrigramCodes() != null ? codeFile.getTrigramCodes().toBytes() : null);
+					ps.setArray(p++, codeFile.getTrigramSet() != null
+							? con.createArrayOf("integer", Arrays.stream(codeFile.getTrigramSet()).boxed().toArray())
+							: null);
+					ps.setObject(p++, codeFile.getTrigramNorm());
+					ps.setObject(p++, codeFile.getTrigramCount());
+					ps.setBytes(p++, codeFile.getMinhashSignature());
+					ps.setBytes(p++, codeFile.getFingerprints());
+					ps.setString(p++, codeFile.getNgramConfig());
+					ps.setString(p++, codeFile.getNormalization());
+				}
+				return ps;
+			}, (ResultSet rs) -> {
+				insertedIds.put(rs.getString(2), rs.getLong(1));
+			});
+		}
+
+		logger.info("Batch insert with vectors completed: {} of {} files inserted in {}ms", insertedIds.size(),
+				codeFiles.size(), System.currentTimeMillis() - start);
+		return insertedIds;
+	}
+
+	/**
+	 * Bulk path for large loads, same contract as
+	 * {@link #batchInsertWithTrigrams}. Rows are streamed in binary COPY format
+	 * into a temporary staging table, then moved over with one INSERT ... SELECT
+	 * whose RETURNING clause hands back the generated ids; files whose content
+	 * hash already exists are skipped. No SQL text or bind parameters per row,
+	 * and a single round trip for the whole data stream.
+	 *
+	 * @return generated id by content hash, for the files actually inserted
+	 */
+	@Transactional
+	public Map<String, Long> copyInsertWithTrigrams(List<CodeFile> codeFiles) {
+		Map<String, Long> insertedIds = new HashMap<>();
+		if (codeFiles.isEmpty()) {
+			return insertedIds;
+		}
+		long start = System.currentTimeMillis();
+
+		jdbcTemplate.execute((ConnectionCallback<Void>) con -> {
+			try (Statement statement = con.createStatement()) {
+				// Dropped at commit, so pooled connections never keep stale rows
+				statement.execute("""
+						CREATE TEMP TABLE code_files_staging (
+						    ord INTEGER, file_name VARCHAR(500), content_deflated BYTEA, language VARCHAR(50),
+						    created_at TIMESTAMP, content_hash VARCHAR(64), trigram_codes BYTEA, trigram_set INTEGER[],
+						    trigram_norm DOUBLE PRECISION, trigram_count INTEGER, minhash_signature BYTEA,
+						    fingerprints BYTEA, ngram_config VARCHAR(16), normalization VARCHAR(16)
+						) ON COMMIT DROP
+						""");
+			}
+
+			PGCopyOutputStream copy = new PGCopyOutputStream(con.unwrap(PGConnection.class),
+					"COPY code_files_staging FROM STDIN (FORMAT BINARY)", COPY_BUFFER_SIZE);
+			try {
+				BinaryCopyWriter writer = new BinaryCopyWriter(copy);
+				int ord = 0;
+				for (CodeFile codeFile : codeFiles) {
+					writer.startRow(14);
+					writer.writeInt(ord++);
+					writer.writeText(codeFile.getFileName());
+					writer.writeBytes(codeFile.getCompressedContent());
+					writer.writeText(codeFile.getLanguage());
+					writer.writeTimestamp(codeFile.getCreatedAt());
+					writer.writeText(codeFile.getContentHash());
+					writer.writeBytes(codeFile.getTrigramCodes() != null ? codeFile.getTrigramCodes().toBytes() : null);
+					writer.writeIntArray(codeFile.getTrigramSet());
+					writer.writeDouble(codeFile.getTrigramNorm());
+					writer.writeInt(codeFile.getTrigramCount());
+					writer.writeBytes(codeFile.getMinhashSignature());
+					writer.writeBytes(codeFile.getFingerprints());
+					writer.writeText(codeFile.getNgramConfig());
+					writer.writeText(codeFile.getNormalization());
+				}
+				writer.finish();
+				copy.close();
+			} catch (IOException e) {
+				if (copy.isActive()) {
+					copy.cancelCopy();
+				}
+				throw new SQLException("COPY into staging table failed", e);
+			}
+
+			try (Statement statement = con.createStatement();
+					ResultSet rs = statement.executeQuery("""
+							INSERT INTO code_files
+							(id, file_name, content_deflated, language, created_at, content_hash,
+							 trigram_codes, trigram_set, trigram_norm, trigram_count, minhash_signature, fingerprints,
+							 ngram_config, normalization, trigrams_generated)
+							SELECT nextval('code_file_sequence'), file_name, content_deflated, language, created_at,
+							       content_hash, trigram_codes, trigram_set, trigram_norm, trigram_count,
+							       minhash_signature, fingerprints, ngram_config, normalization, true
+							FROM code_files_staging
+							ORDER BY ord
+							ON CONFLICT (content_hash) DO NOTHING
+							RETURNING id, content_hash
+							""")) {
+				while (rs.next()) {
+					insertedIds.put(rs.getString(2), rs.getLong(1));
+				}
+			}
+			return null;
 		});
+
+		logger.info("COPY insert completed: {} of {} files inserted in {}ms", insertedIds.size(), codeFiles.size(),
+				System.currentTimeMillis() - start);
+		return insertedIds;
 	}
 
 	/**
-	 * Simple JSON conversion for trigrams
+	 * Writes PostgreSQL's binary COPY format: a signature header, then per row
+	 * a field count and length-prefixed big-endian values (-1 for NULL), then
+	 * a -1 trailer.
 	 */
-	private String convertMapToJson(java.util.Map<String, Integer> map) {
-		if (map == null || map.isEmpty()) {
-			return "{}";
+	private static final class BinaryCopyWriter {
+
+		private static final byte[] SIGNATURE = { 'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0 };
+
+		private static final LocalDateTime POSTGRES_EPOCH = LocalDateTime.of(2000, 1, 1, 0, 0);
+
+		private static final int INT4_OID = 23;
+
+		private final DataOutputStream out;
+
+		BinaryCopyWriter(OutputStream target) throws IOException {
+			this.out = new DataOutputStream(new BufferedOutputStream(target, COPY_BUFFER_SIZE));
+			out.write(SIGNATURE);
+			out.writeInt(0); // flags
+			out.writeInt(0); // header extension length
+		}
+
+		void startRow(int fields) throws IOException {
+			out.writeShort(fields);
 		}
 
-		StringBuilder json = new StringBuilder("{");
-		boolean first = true;
+		void writeInt(Integer value) throws IOException {
+			if (value == null) {
+				out.writeInt(-1);
+				return;
+			}
+			out.writeInt(4);
+			out.writeInt(value);
+		}
 
-		for (java.util.Map.Entry<String, Integer> entry : map.entrySet()) {
-			if (!first)
-				json.append(",");
-			json.append("\"").append(entry.getKey()).append("\":").append(entry.getValue());
-			first = false;
+		void writeDouble(Double value) throws IOException {
+			if (value == null) {
+				out.writeInt(-1);
+				return;
+			}
+			out.writeInt(8);
+			out.writeDouble(value);
 		}
 
-		json.append("}");
-		return json.toString();
+		void writeText(String value) throws IOException {
+			writeBytes(value != null ? value.getBytes(StandardCharsets.UTF_8) : null);
+		}
+
+		void writeBytes(byte[] value) throws IOException {
+			if (value == null) {
+				out.writeInt(-1);
+				return;
+			}
+			out.writeInt(value.length);
+			out.write(value);
+		}
+
+		/** Microseconds since 2000-01-01, the integer-datetimes encoding */
+		void writeTimestamp(LocalDateTime value) throws IOException {
+			if (value == null) {
+				out.writeInt(-1);
+				return;
+			}
+			out.writeInt(8);
+			out.writeLong(ChronoUnit.MICROS.between(POSTGRES_EPOCH, value));
+		}
+
+		/** One-dimensional int4 array without NULL elements */
+		void writeIntArray(int[] values) throws IOException {
+			if (values == null) {
+				out.writeInt(-1);
+				return;
+			}
+			if (values.length == 0) {
+				out.writeInt(12);
+				out.writeInt(0); // dimensions
+				out.writeInt(0); // has nulls
+				out.writeInt(INT4_OID);
+				return;
+			}
+			out.writeInt(20 + values.length * 8);
+			out.writeInt(1); // dimensions
+			out.writeInt(0); // has nulls
+			out.writeInt(INT4_OID);
+			out.writeInt(values.length);
+			out.writeInt(1); // lower bound
+			for (int value : values) {
+				out.writeInt(4);
+				out.writeInt(value);
+			}
+		}
+
+		void finish() throws IOException {
+			out.writeShort(-1);
+			out.flush();
+		}
 	}
-}
\ No newline at end of file
+}
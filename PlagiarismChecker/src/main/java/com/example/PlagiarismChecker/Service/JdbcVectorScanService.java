@@ -0,0 +1,302 @@
+package com.example.PlagiarismChecker.Service;
+
+import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Streams (id, file name, language, trigram vector) rows straight from
+ * code_files with a JDBC fetch size, decoding each binary vector (or legacy
+ * JSONB one) into a {@link TrigramVector} without building a CodeFile or a
+ * boxed map.
+ */
+@Service
+public class JdbcVectorScanService {
+
+	private static final Logger logger = LoggerFactory.getLogger(JdbcVectorScanService.class);
+
+	private static final int FETCH_SIZE = 500;
+
+	private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private NgramExtractor ngramExtractor;
+
+	/**
+	 * Smallest and largest file ID for the language filter, or null if no rows
+	 * match. Used to cut the table into id-range partitions.
+	 */
+	public long[] idBounds(String language) {
+		return jdbcTemplate.query("""
+				SELECT MIN(id), MAX(id) FROM code_files
+				WHERE (CAST(? AS VARCHAR) IS NULL OR language = ?)
+				""", (ResultSetExtractor<long[]>) rs -> {
+			if (!rs.next()) {
+				return null;
+			}
+			long min = rs.getLong(1);
+			return rs.wasNull() ? null : new long[] { min, rs.getLong(2) };
+		}, language, language);
+	}
+
+	/**
+	 * Streams every row with a vector of the active n-gram configuration whose
+	 * id lies in [fromId, toId). Rows are handed to the consumer one at a time and are not
+	 * retained, so memory stays bounded by the fetch size.
+	 *
+	 * @param prefilter optional test on the stored norm and trigram count; rows
+	 *                  it rejects are skipped before their vector is decoded
+	 * @return number of rows streamed
+	 */
+	public long scan(String language, long fromId, long toId, VectorRowFilter prefilter,
+			VectorRowConsumer consumer) {
+		String sql = """
+				SELECT id, file_name, language, trigram_codes, trigram_norm, trigram_count, trigram_vector::text
+				FROM code_files
+				WHERE id >= ? AND id < ?
+				  AND (CAST(? AS VARCHAR) IS NULL OR language = ?)
+				  AND (trigram_codes IS NOT NULL OR trigram_vector IS NOT NULL)
+				  AND ngram_config = ?
+				""";
+
+		long rows = stream(sql, ps -> {
+			ps.setLong(1, fromId);
+			ps.setLong(2, toId);
+			ps.setString(3, language);
+			ps.setString(4, language);
+			ps.setString(5, ngramExtractor.config());
+		}, prefilter, consumer);
+		logger.debug("Streamed {} vectors for id range [{}, {})", rows, fromId, toId);
+		return rows;
+	}
+
+	/**
+	 * Streams, in id order, every vector up to maxFileId matching the language
+	 * and the optional [createdFrom, createdTo) window. The stable ordering is
+	 * what lets the all-pairs job address blocks by position across resumes.
+	 *
+	 * @return number of rows streamed
+	 */
+	public long scanOrdered(String language, LocalDateTime createdFrom, LocalDateTime createdTo, long maxFileId,
+			VectorRowConsumer consumer) {
+		String sql = """
+				SELECT id, file_name, language, trigram_codes, trigram_norm, trigram_count, trigram_vector::text
+				FROM code_files
+				WHERE id <= ?
+				  AND (CAST(? AS VARCHAR) IS NULL OR language = ?)
+				  AND (CAST(? AS TIMESTAMP) IS NULL OR created_at >= ?)
+				  AND (CAST(? AS TIMESTAMP) IS NULL OR created_at < ?)
+				  AND (trigram_codes IS NOT NULL OR trigram_vector IS NOT NULL)
+				  AND ngram_config = ?
+				ORDER BY id
+				""";
+
+		Timestamp from = createdFrom != null ? Timestamp.valueOf(createdFrom) : null;
+		Timestamp to = createdTo != null ? Timestamp.valueOf(createdTo) : null;
+
+		return stream(sql, ps -> {
+			ps.setLong(1, maxFileId);
+			ps.setString(2, language);
+			ps.setString(3, language);
+			ps.setTimestamp(4, from);
+			ps.setTimestamp(5, from);
+			ps.setTimestamp(6, to);
+			ps.setTimestamp(7, to);
+			ps.setString(8, ngramExtractor.config());
+		}, null, consumer);
+	}
+
+	/**
+	 * Streams the vectors of the given files, in no particular order, without
+	 * touching their content. Files that do not exist or have no vector of
+	 * the active n-gram configuration are simply not reported.
+	 *
+	 * @return number of rows streamed
+	 */
+	public long scanByIds(Collection<Long> ids, VectorRowConsumer consumer) {
+		if (ids.isEmpty()) {
+			return 0;
+		}
+		String sql = """
+				SELECT id, file_name, language, trigram_codes, trigram_norm, trigram_count, trigram_vector::text
+				FROM code_files
+				WHERE id = ANY(?)
+				  AND (trigram_codes IS NOT NULL OR trigram_vector IS NOT NULL)
+				  AND ngram_config = ?
+				""";
+
+		return stream(sql, ps -> {
+			ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids.toArray()));
+			ps.setString(2, ngramExtractor.config());
+		}, null, consumer);
+	}
+
+	/**
+	 * Streams every row with a vector of the active n-gram configuration
+	 * together with its stored MinHash signature and fingerprints (null when
+	 * not yet written), for rebuilding the in-memory indexes without loading
+	 * any content.
+	 *
+	 * @return number of rows streamed
+	 */
+	public long scanForIndexing(IndexRowConsumer consumer) {
+		String sql = """
+				SELECT id, file_name, language, trigram_codes, trigram_norm, trigram_count, trigram_vector::text,
+				       minhash_signature, fingerprints
+				FROM code_files
+				WHERE (trigram_codes IS NOT NULL OR trigram_vector IS NOT NULL)
+				  AND ngram_config = ?
+				""";
+
+		boolean trigramKeys = ngramExtractor.usesTrigramKeys();
+		return query(sql, ps -> ps.setString(1, ngramExtractor.config()), rs -> {
+			consumer.accept(rs.getLong(1), rs.getString(2), rs.getString(3), decode(rs, trigramKeys), rs.getBytes(8),
+					rs.getBytes(9));
+			return true;
+		});
+	}
+
+	/**
+	 * Runs a query whose columns are (id, file_name, language, trigram_codes,
+	 * trigram_norm, trigram_count, trigram_vector::text) and pushes each decoded
+	 * row to the consumer. The JSONB text is only parsed for legacy rows that
+	 * have no binary vector yet.
+	 */
+	private long stream(String sql, PreparedStatementSetter binder, VectorRowFilter prefilter,
+			VectorRowConsumer consumer) {
+		boolean trigramKeys = ngramExtractor.usesTrigramKeys();
+		return query(sql, binder, rs -> {
+			if (prefilter != null) {
+				double norm = rs.getDouble(5);
+				boolean hasNorm = !rs.wasNull();
+				int count = rs.getInt(6);
+				// Legacy rows without stored stats are never pruned
+				if (hasNorm && !rs.wasNull() && !prefilter.test(norm, count)) {
+					return false;
+				}
+			}
+			consumer.accept(rs.getLong(1), rs.getString(2), rs.getString(3), decode(rs, trigramKeys));
+			return true;
+		});
+	}
+
+	/**
+	 * Runs the query with a fetch size and hands each row to the handler,
+	 * counting the rows it accepts.
+	 */
+	private long query(String sql, PreparedStatementSetter binder, RowHandler handler) {
+		return jdbcTemplate.execute((ConnectionCallback<Long>) con -> {
+			boolean autoCommit = con.getAutoCommit();
+			// PostgreSQL only honours the fetch size inside a transaction; an enclosing one is left to its owner
+			if (autoCommit) {
+				con.setAutoCommit(false);
+			}
+			long rows = 0;
+			try (PreparedStatement ps = con.prepareStatement(sql)) {
+				ps.setFetchSize(FETCH_SIZE);
+				binder.setValues(ps);
+
+				try (ResultSet rs = ps.executeQuery()) {
+					while (rs.next()) {
+						if (handler.handle(rs)) {
+							rows++;
+						}
+					}
+				}
+				if (autoCommit) {
+					con.commit();
+				}
+			} finally {
+				if (autoCommit) {
+					con.setAutoCommit(true);
+				}
+			}
+			return rows;
+		});
+	}
+
+	/** Binary vector of columns 4 and 7, or the legacy JSONB one */
+	private static TrigramVector decode(ResultSet rs, boolean trigramKeys) throws SQLException {
+		TrigramVector vector = TrigramVector.fromBytes(rs.getBytes(4));
+		return vector != null ? vector : parseVector(rs.getString(7), trigramKeys);
+	}
+
+	/**
+	 * Decodes the {"abc": 3, ...} JSONB text directly into packed codes.
+	 *
+	 * @param trigramKeys true for CHAR:3 vectors keyed by the trigram itself,
+	 *                    false for decimal n-gram codes
+	 */
+	static TrigramVector parseVector(String json, boolean trigramKeys) {
+		if (json == null || json.length() <= 2) {
+			return TrigramVector.EMPTY;
+		}
+
+		long[] packed = new long[Math.max(16, json.length() / 8)];
+		int n = 0;
+		try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				return TrigramVector.EMPTY;
+			}
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String key = parser.currentName();
+				parser.nextToken();
+				int count = parser.getValueAsInt();
+				if (count <= 0 || (trigramKeys && key.length() != 3)) {
+					continue;
+				}
+				if (n == packed.length) {
+					packed = Arrays.copyOf(packed, n * 2);
+				}
+				int code = trigramKeys ? TrigramVector.encode(key.charAt(0), key.charAt(1), key.charAt(2))
+						: NgramExtractor.parseCode(key);
+				packed[n++] = TrigramVector.pack(code, count);
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("Malformed trigram_vector JSON", e);
+		}
+		return TrigramVector.fromPacked(packed, n);
+	}
+
+	@FunctionalInterface
+	public interface VectorRowFilter {
+		boolean test(double norm, int trigramCount);
+	}
+
+	@FunctionalInterface
+	public interface VectorRowConsumer {
+		void accept(long fileId, String fileName, String language, TrigramVector vector);
+	}
+
+	@FunctionalInterface
+	public interface IndexRowConsumer {
+		void accept(long fileId, String fileName, String language, TrigramVector vector, byte[] minhashSignature,
+				byte[] fingerprints);
+	}
+
+	@FunctionalInterface
+	private interface RowHandler {
+		boolean handle(ResultSet rs) throws SQLException;
+	}
+}
@@ -0,0 +1,34 @@
+package com.example.PlagiarismChecker.Service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.List;
+
+/**
+ * Normalization for one source language, discovered as a Spring bean by
+ * {@link LanguageRegistry}. Adding a language means declaring another bean;
+ * nothing in the upload or comparison paths changes.
+ */
+public interface LanguageNormalizer {
+
+	/** Upper-case language name as stored in code_files.language, e.g. "JAVA" */
+	String language();
+
+	/** Lower-case file extensions including the dot, e.g. ".py" */
+	List<String> extensions();
+
+	/** Comment and string-literal syntax stripped by the lexer */
+	CodeNormalizer.Syntax syntax();
+
+	/** Words dropped from the token stream, matched case-insensitively */
+	List<String> keywords();
+
+	String normalize(String content);
+
+	/**
+	 * Normalizes everything the reader yields into the sink.
+	 *
+	 * @throws IllegalArgumentException if the input exceeds maxChars
+	 */
+	void normalize(Reader reader, long maxChars, CodeNormalizer.Sink sink) throws IOException;
+}
@@ -0,0 +1,94 @@
+package com.example.PlagiarismChecker.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Language and extension lookup over every {@link LanguageNormalizer} bean,
+ * built once at startup. Extension checks are one map lookup on the file
+ * suffix instead of a scan over every language's extensions.
+ */
+@Component
+public class LanguageRegistry {
+
+	private static final Logger logger = LoggerFactory.getLogger(LanguageRegistry.class);
+
+	private final Map<String, LanguageNormalizer> byLanguage = new HashMap<>();
+
+	private final Map<String, LanguageNormalizer> byExtension = new HashMap<>();
+
+	private final LanguageNormalizer plain;
+
+	public LanguageRegistry(List<LanguageNormalizer> normalizers, CodeNormalizer lexer) {
+		for (LanguageNormalizer normalizer : normalizers) {
+			if (byLanguage.putIfAbsent(normalizer.language(), normalizer) != null) {
+				throw new IllegalStateException("Two normalizers registered for language " + normalizer.language());
+			}
+			for (String extension : normalizer.extensions()) {
+				LanguageNormalizer previous = byExtension.putIfAbsent(extension, normalizer);
+				if (previous != null) {
+					throw new IllegalStateException("Extension " + extension + " registered for both "
+							+ previous.language() + " and " + normalizer.language());
+				}
+			}
+		}
+		this.plain = new LexicalLanguageNormalizer(lexer, "PLAIN", List.of(), CodeNormalizer.Syntax.PLAIN,
+				CodeNormalizer.COMMON_KEYWORDS);
+
+		logger.info("Registered normalizers for languages {}", new TreeSet<>(byLanguage.keySet()));
+	}
+
+	/** Normalizer of a supported language, or null */
+	public LanguageNormalizer forLanguage(String language) {
+		return language != null ? byLanguage.get(language.toUpperCase()) : null;
+	}
+
+	/**
+	 * Normalizer of the language, or tokenization and keyword removal only for
+	 * an unsupported one.
+	 */
+	public LanguageNormalizer forLanguageOrPlain(String language) {
+		LanguageNormalizer normalizer = forLanguage(language);
+		if (normalizer == null) {
+			logger.warn("Unsupported language for normalization: {}", language);
+			return plain;
+		}
+		return normalizer;
+	}
+
+	/** Tokenization and keyword removal only, for text of no particular language */
+	public LanguageNormalizer plain() {
+		return plain;
+	}
+
+	public boolean isSupported(String language) {
+		return forLanguage(language) != null;
+	}
+
+	public Set<String> languages() {
+		return new TreeSet<>(byLanguage.keySet());
+	}
+
+	/** True when the file's extension belongs to the given language */
+	public boolean isValidExtension(String fileName, String language) {
+		LanguageNormalizer normalizer = forLanguage(language);
+		return normalizer != null && fileName != null && normalizer == byExtension.get(extensionOf(fileName));
+	}
+
+	public List<String> extensions(String language) {
+		LanguageNormalizer normalizer = forLanguage(language);
+		return normalizer != null ? normalizer.extensions() : List.of();
+	}
+
+	private static String extensionOf(String fileName) {
+		int dot = fileName.lastIndexOf('.');
+		return dot >= 0 ? fileName.substring(dot).toLowerCase() : "";
+	}
+}
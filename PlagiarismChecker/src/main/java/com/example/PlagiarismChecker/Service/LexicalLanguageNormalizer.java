@@ -0,0 +1,66 @@
+package com.example.PlagiarismChecker.Service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.List;
+
+/**
+ * {@link LanguageNormalizer} backed by the shared {@link CodeNormalizer}
+ * lexer. The keyword table is compiled once when the bean is created, so a
+ * normalization only runs the comment, literal and keyword rules of its own
+ * language.
+ */
+public class LexicalLanguageNormalizer implements LanguageNormalizer {
+
+	private final CodeNormalizer lexer;
+
+	private final String language;
+
+	private final List<String> extensions;
+
+	private final CodeNormalizer.Syntax syntax;
+
+	private final List<String> keywords;
+
+	private final CodeNormalizer.KeywordTable keywordTable;
+
+	public LexicalLanguageNormalizer(CodeNormalizer lexer, String language, List<String> extensions,
+			CodeNormalizer.Syntax syntax, List<String> keywords) {
+		this.lexer = lexer;
+		this.language = language.toUpperCase();
+		this.extensions = extensions.stream().map(String::toLowerCase).toList();
+		this.syntax = syntax;
+		this.keywords = keywords.stream().map(String::toLowerCase).distinct().toList();
+		this.keywordTable = new CodeNormalizer.KeywordTable(this.keywords);
+	}
+
+	@Override
+	public String language() {
+		return language;
+	}
+
+	@Override
+	public List<String> extensions() {
+		return extensions;
+	}
+
+	@Override
+	public CodeNormalizer.Syntax syntax() {
+		return syntax;
+	}
+
+	@Override
+	public List<String> keywords() {
+		return keywords;
+	}
+
+	@Override
+	public String normalize(String content) {
+		return lexer.normalize(content, syntax, keywordTable);
+	}
+
+	@Override
+	public void normalize(Reader reader, long maxChars, CodeNormalizer.Sink sink) throws IOException {
+		lexer.normalize(reader, syntax, keywordTable, maxChars, sink);
+	}
+}
@@ -0,0 +1,159 @@
+package com.example.PlagiarismChecker.Service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Banded locality-sensitive hashing over MinHash signatures. The 128 signature
+ * positions are cut into 32 bands of 4 rows; two files become candidates when
+ * any band hashes to the same bucket. With these parameters pairs above roughly
+ * 0.4 Jaccard are found with high probability, while a query touches only a
+ * handful of buckets regardless of corpus size.
+ */
+@Component
+public class LshIndex {
+
+	public static final int BANDS = 32;
+
+	public static final int ROWS_PER_BAND = MinHashSignature.NUM_PERMUTATIONS / BANDS;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private final Map<Long, Bucket> buckets = new HashMap<>();
+
+	private final Map<Long, long[]> bucketKeysByFileId = new HashMap<>();
+
+	public void add(Long fileId, int[] signature) {
+		if (fileId == null || signature == null) {
+			return;
+		}
+
+		long[] keys = bucketKeys(signature);
+
+		lock.writeLock().lock();
+		try {
+			removeLocked(fileId);
+			for (long key : keys) {
+				buckets.computeIfAbsent(key, k -> new Bucket()).add(fileId);
+			}
+			bucketKeysByFileId.put(fileId, keys);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void remove(Long fileId) {
+		lock.writeLock().lock();
+		try {
+			removeLocked(fileId);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void clear() {
+		lock.writeLock().lock();
+		try {
+			buckets.clear();
+			bucketKeysByFileId.clear();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return bucketKeysByFileId.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Files sharing at least one band bucket with the signature, in first-seen
+	 * order.
+	 */
+	public Set<Long> candidates(int[] signature) {
+		long[] keys = bucketKeys(signature);
+		Set<Long> candidates = new LinkedHashSet<>();
+
+		lock.readLock().lock();
+		try {
+			for (long key : keys) {
+				Bucket bucket = buckets.get(key);
+				if (bucket != null) {
+					for (int i = 0; i < bucket.size; i++) {
+						candidates.add(bucket.fileIds[i]);
+					}
+				}
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+		return candidates;
+	}
+
+	private void removeLocked(Long fileId) {
+		long[] keys = bucketKeysByFileId.remove(fileId);
+		if (keys == null) {
+			return;
+		}
+		for (long key : keys) {
+			Bucket bucket = buckets.get(key);
+			if (bucket != null) {
+				bucket.remove(fileId);
+				if (bucket.size == 0) {
+					buckets.remove(key);
+				}
+			}
+		}
+	}
+
+	/**
+	 * One key per band: band number in the high 32 bits, hash of its rows in the
+	 * low 32 bits, so equal row values in different bands never collide.
+	 */
+	private static long[] bucketKeys(int[] signature) {
+		long[] keys = new long[BANDS];
+		for (int band = 0; band < BANDS; band++) {
+			int hash = 1;
+			int offset = band * ROWS_PER_BAND;
+			for (int row = 0; row < ROWS_PER_BAND; row++) {
+				hash = 31 * hash + signature[offset + row];
+			}
+			keys[band] = ((long) band << 32) | (hash & 0xFFFFFFFFL);
+		}
+		return keys;
+	}
+
+	private static final class Bucket {
+
+		private long[] fileIds = new long[2];
+
+		private int size = 0;
+
+		void add(long fileId) {
+			if (size == fileIds.length) {
+				fileIds = Arrays.copyOf(fileIds, size * 2);
+			}
+			fileIds[size++] = fileId;
+		}
+
+		void remove(long fileId) {
+			for (int i = 0; i < size; i++) {
+				if (fileIds[i] == fileId) {
+					fileIds[i] = fileIds[--size];
+					return;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,12 @@
+package com.example.PlagiarismChecker.Service;
+
+import java.io.Serializable;
+
+/**
+ * A stretch of code shared by two files, located through their common
+ * winnowing fingerprints. Positions are token indexes into the stored
+ * (normalized) content, end exclusive.
+ */
+public record MatchRegion(int file1Start, int file1End, String file1Snippet, int file2Start, int file2End,
+        String file2Snippet) implements Serializable {
+}
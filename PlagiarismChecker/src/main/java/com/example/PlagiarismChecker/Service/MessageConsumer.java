@@ -1,15 +1,11 @@
 package com.example.PlagiarismChecker.Service;
 
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.nio.charset.StandardCharsets;
-
-
 import com.example.PlagiarismChecker.DTO.BatchUploadMessage;
 import com.example.PlagiarismChecker.Repository.CodeFileRepository;
 import com.example.PlagiarismChecker.model.CodeFile;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -20,6 +16,7 @@ import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -45,6 +42,14 @@ public class MessageConsumer {
     @Autowired
     private JdbcBatchInsertService jdbcBatchInsertService;
     
+    /** Processed files are written in chunks of this size, across processing batches */
+    @Value("${plagiarism.ingest.insert-batch-size:500}")
+    private int insertBatchSize;
+
+    /** Chunks at least this large go through COPY instead of multi-row INSERTs; 0 keeps COPY off */
+    @Value("${plagiarism.ingest.copy-threshold:0}")
+    private int copyThreshold;
+    
     private final ExecutorService executorService = Executors.newFixedThreadPool(PARALLEL_THREADS);
 
     /**
@@ -66,6 +71,7 @@ public class MessageConsumer {
         try {
             // Split files into batches of 50
             List<List<BatchUploadMessage.FileMetadata>> batches = splitIntoBatches(files, BATCH_SIZE);
+            List<CodeFile> pending = new ArrayList<>();
             
             for (List<BatchUploadMessage.FileMetadata> batch : batches) {
                 // Process each batch in parallel
@@ -88,18 +94,26 @@ public class MessageConsumer {
                     .filter(cf -> cf != null)
                     .collect(Collectors.toList());
                 
-                // Bulk insert to database
-                if (!codeFiles.isEmpty()) {
-                    bulkInsertCodeFiles(codeFiles);
-                    processedCount.addAndGet(codeFiles.size());
+                // Bulk insert to database once enough files are pending
+                pending.addAll(codeFiles);
+                if (pending.size() >= insertBatchSize) {
+                    bulkInsertCodeFiles(pending);
+                    processedCount.addAndGet(pending.size());
+                    pending = new ArrayList<>();
                 }
                 
-                // Update job progress
+                // Only written files count as processed, so the job cannot complete before its last chunk is inserted
                 uploadJobService.updateProgress(jobId, processedCount.get(), failedCount.get());
                 
-                logger.info("Job {}: Processed batch - Total: {}/{}", 
-                    jobId, processedCount.get() + failedCount.get(), files.size());
+                logger.info("Job {}: Processed batch - Total: {}/{} ({} pending insert)", 
+                    jobId, processedCount.get() + failedCount.get(), files.size(), pending.size());
+            }
+            
+            if (!pending.isEmpty()) {
+                bulkInsertCodeFiles(pending);
+                processedCount.addAndGet(pending.size());
             }
+            uploadJobService.updateProgress(jobId, processedCount.get(), failedCount.get());
             
             long elapsed = System.currentTimeMillis() - startTime;
             logger.info("Job {} completed in {}ms. Success: {}, Failed: {}", 
@@ -116,7 +130,7 @@ public class MessageConsumer {
     
     /**
      * Process single file - reads, normalizes, creates CodeFile entity
-     * NO trigram generation - done lazily on first comparison
+     * Text, hash and trigram vector all come out of one normalization pass
      */
     private CodeFile processFile(BatchUploadMessage.FileMetadata metadata, String language) throws IOException {
         File tempFile = new File(metadata.getTempFilePath());
@@ -126,26 +140,21 @@ public class MessageConsumer {
         }
         
         try (FileInputStream inputStream = new FileInputStream(tempFile)) {
-            String content = readFileContent(inputStream);
-            String normalizedContent = codeFileService.normalizeContent(content, language);
+            // Streamed: the raw file is never held, only the normalized text and its running hash
+            NormalizedDocument document = codeFileService.normalizeStream(inputStream, language);
             
-            if (normalizedContent.isEmpty()) {
+            if (document.isEmpty()) {
                 throw new IllegalArgumentException("Empty content after normalization");
             }
             
-            // Generate content hash for duplicate detection
-            String contentHash = generateContentHash(normalizedContent);
-            
-            // Create CodeFile entity WITHOUT trigrams (lazy generation)
+            // Create CodeFile entity complete with trigrams, nothing is generated later
             CodeFile codeFile = new CodeFile();
             codeFile.setFileName(metadata.getOriginalFileName());
-            codeFile.setContent(normalizedContent);
             codeFile.setLanguage(language);
             codeFile.setCreatedAt(LocalDateTime.now());
-            codeFile.setContentHash(contentHash);
-            codeFile.setTrigramsGenerated(false); // Will be generated on-demand
+            TrigramVector vector = codeFileService.applyDocument(codeFile, document);
             
-            logger.debug("Processed file: {} (no trigrams yet)", metadata.getOriginalFileName());
+            logger.debug("Processed file: {} ({} trigrams)", metadata.getOriginalFileName(), vector.size());
             return codeFile;
             
         } catch (Exception e) {
@@ -154,53 +163,47 @@ public class MessageConsumer {
         }
     }
     
-    /**
-     * Generate SHA-256 hash of content for duplicate detection
-     */
-    private String generateContentHash(String content) {
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(content.getBytes(StandardCharsets.UTF_8));
-            StringBuilder hexString = new StringBuilder();
-            for (byte b : hash) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1) hexString.append('0');
-                hexString.append(hex);
-            }
-            return hexString.toString();
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("SHA-256 algorithm not available", e);
-        }
-    }
-    
     /**
      * Bulk insert using JDBC for maximum performance
      * 10x faster than JPA saveAll
      */
     private void bulkInsertCodeFiles(List<CodeFile> codeFiles) {
+        List<CodeFile> inserted;
         try {
-            jdbcBatchInsertService.batchInsertIgnoreDuplicates(codeFiles);
-            logger.debug("JDBC bulk inserted {} files", codeFiles.size());
+            Map<String, Long> insertedIds = copyThreshold > 0 && codeFiles.size() >= copyThreshold
+                    ? copyInsert(codeFiles)
+                    : jdbcBatchInsertService.batchInsertWithTrigrams(codeFiles);
+            inserted = new ArrayList<>(insertedIds.size());
+            for (CodeFile codeFile : codeFiles) {
+                // Duplicates skipped by ON CONFLICT have no id and are not indexed
+                Long id = insertedIds.remove(codeFile.getContentHash());
+                if (id != null) {
+                    codeFile.setId(id);
+                    inserted.add(codeFile);
+                }
+            }
+            logger.debug("JDBC bulk inserted {} files", inserted.size());
         } catch (Exception e) {
             logger.error("JDBC bulk insert failed, falling back to JPA: {}", e.getMessage());
             // Fallback to JPA if JDBC fails
-            codeFileRepository.saveAll(codeFiles);
+            inserted = codeFileRepository.saveAll(codeFiles);
         }
+
+        // Register the batch with the in-memory indexes for compare-all
+        codeFileService.indexInsertedFiles(inserted);
     }
     
     /**
-     * Read file content as string
+     * COPY path, falling back to multi-row INSERTs (which skip duplicates
+     * too) rather than straight to JPA if COPY fails
      */
-    private String readFileContent(FileInputStream inputStream) throws IOException {
-        StringBuilder content = new StringBuilder();
-        byte[] buffer = new byte[8192];
-        int bytesRead;
-        
-        while ((bytesRead = inputStream.read(buffer)) != -1) {
-            content.append(new String(buffer, 0, bytesRead));
+    private Map<String, Long> copyInsert(List<CodeFile> codeFiles) {
+        try {
+            return jdbcBatchInsertService.copyInsertWithTrigrams(codeFiles);
+        } catch (Exception e) {
+            logger.error("COPY insert failed, falling back to multi-row INSERTs: {}", e.getMessage());
+            return jdbcBatchInsertService.batchInsertWithTrigrams(codeFiles);
         }
-        
-        return content.toString();
     }
     
     /**
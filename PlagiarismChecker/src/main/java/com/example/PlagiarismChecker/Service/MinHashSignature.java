@@ -0,0 +1,91 @@
+package com.example.PlagiarismChecker.Service;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * MinHash signature over the set of trigram codes of a file. Two signatures
+ * agree in a given position with probability equal to the Jaccard similarity
+ * of the underlying trigram sets, which is what the banded LSH table exploits.
+ *
+ * Permutations are simulated with multiply-shift hashing; the coefficients come
+ * from a fixed seed so persisted signatures stay comparable across restarts.
+ */
+public final class MinHashSignature {
+
+    public static final int NUM_PERMUTATIONS = 128;
+
+    private static final long SEED = 0x5DEECE66DL;
+
+    private static final long[] MULTIPLIERS = new long[NUM_PERMUTATIONS];
+    private static final long[] INCREMENTS = new long[NUM_PERMUTATIONS];
+
+    static {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int i = 0; i < NUM_PERMUTATIONS; i++) {
+            MULTIPLIERS[i] = random.nextLong() | 1L;
+            INCREMENTS[i] = random.nextLong();
+        }
+    }
+
+    private MinHashSignature() {
+    }
+
+    public static int[] compute(TrigramVector vector) {
+        int[] signature = new int[NUM_PERMUTATIONS];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+
+        for (int code : vector.codes()) {
+            long mixed = mix(code);
+            for (int i = 0; i < NUM_PERMUTATIONS; i++) {
+                // Top 31 bits keep the hash non-negative so plain int comparison works
+                int hash = (int) ((MULTIPLIERS[i] * mixed + INCREMENTS[i]) >>> 33);
+                if (hash < signature[i]) {
+                    signature[i] = hash;
+                }
+            }
+        }
+        return signature;
+    }
+
+    /**
+     * Fraction of agreeing positions, an estimate of the Jaccard similarity.
+     */
+    public static double estimateJaccard(int[] signature1, int[] signature2) {
+        int equal = 0;
+        for (int i = 0; i < NUM_PERMUTATIONS; i++) {
+            if (signature1[i] == signature2[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / NUM_PERMUTATIONS;
+    }
+
+    public static byte[] toBytes(int[] signature) {
+        ByteBuffer buffer = ByteBuffer.allocate(signature.length * Integer.BYTES);
+        buffer.asIntBuffer().put(signature);
+        return buffer.array();
+    }
+
+    /**
+     * @return the decoded signature, or null if the bytes are missing or were
+     *         written with a different number of permutations
+     */
+    public static int[] fromBytes(byte[] bytes) {
+        if (bytes == null || bytes.length != NUM_PERMUTATIONS * Integer.BYTES) {
+            return null;
+        }
+        int[] signature = new int[NUM_PERMUTATIONS];
+        ByteBuffer.wrap(bytes).asIntBuffer().get(signature);
+        return signature;
+    }
+
+    /** Murmur3 finalizer, spreads the small dense trigram codes over 64 bits */
+    private static long mix(int code) {
+        long h = code + 0x9E3779B97F4A7C15L;
+        h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+        h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+}
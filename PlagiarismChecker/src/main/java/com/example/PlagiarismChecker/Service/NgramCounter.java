@@ -0,0 +1,136 @@
+package com.example.PlagiarismChecker.Service;
+
+import java.util.Arrays;
+
+/**
+ * Reusable open-addressing table from n-gram code to count, with linear
+ * probing over primitive arrays. Counting allocates nothing per n-gram; only
+ * the final sorted {@link TrigramVector} arrays are allocated.
+ *
+ * One instance per thread via {@link #forCurrentThread()}; reset cost is
+ * proportional to the distinct codes of the previous use, not the capacity.
+ */
+final class NgramCounter {
+
+    private static final ThreadLocal<NgramCounter> LOCAL = ThreadLocal.withInitial(NgramCounter::new);
+
+    private static final int INITIAL_CAPACITY = 4096;
+
+    /** Tables that grew past this are dropped on reset instead of kept per thread */
+    private static final int MAX_RETAINED_CAPACITY = 1 << 18;
+
+    private int[] keys;
+
+    /** Zero marks an empty slot, since every stored code has a count of at least one */
+    private int[] counts;
+
+    /** Occupied slots in insertion order, for reset and emission */
+    private int[] usedSlots;
+
+    private int size;
+
+    private int mask;
+
+    private long[] scratch = new long[0];
+
+    private NgramCounter() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    static NgramCounter forCurrentThread() {
+        NgramCounter counter = LOCAL.get();
+        counter.reset();
+        return counter;
+    }
+
+    void add(int code) {
+        int slot = mix(code) & mask;
+        while (counts[slot] != 0) {
+            if (keys[slot] == code) {
+                counts[slot]++;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = code;
+        counts[slot] = 1;
+        usedSlots[size++] = slot;
+        if (size * 2 > keys.length) {
+            grow();
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Emits the counted codes as a vector sorted by code.
+     */
+    TrigramVector toVector() {
+        if (size == 0) {
+            return TrigramVector.EMPTY;
+        }
+        if (scratch.length < size) {
+            scratch = new long[Math.max(size, scratch.length * 2)];
+        }
+        for (int i = 0; i < size; i++) {
+            int slot = usedSlots[i];
+            scratch[i] = TrigramVector.pack(keys[slot], counts[slot]);
+        }
+        Arrays.sort(scratch, 0, size);
+
+        int[] codes = new int[size];
+        int[] sortedCounts = new int[size];
+        for (int i = 0; i < size; i++) {
+            codes[i] = (int) (scratch[i] >>> 32);
+            sortedCounts[i] = (int) scratch[i];
+        }
+        return new TrigramVector(codes, sortedCounts);
+    }
+
+    private void reset() {
+        if (keys.length > MAX_RETAINED_CAPACITY) {
+            allocate(INITIAL_CAPACITY);
+            scratch = new long[0];
+            return;
+        }
+        for (int i = 0; i < size; i++) {
+            counts[usedSlots[i]] = 0;
+        }
+        size = 0;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldCounts = counts;
+        int[] oldUsed = usedSlots;
+        int oldSize = size;
+
+        allocate(keys.length * 2);
+        for (int i = 0; i < oldSize; i++) {
+            int from = oldUsed[i];
+            int slot = mix(oldKeys[from]) & mask;
+            while (counts[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = oldKeys[from];
+            counts[slot] = oldCounts[from];
+            usedSlots[size++] = slot;
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        counts = new int[capacity];
+        usedSlots = new int[capacity / 2 + 1];
+        mask = capacity - 1;
+        size = 0;
+    }
+
+    /** Packed CHAR codes are small and clustered, so spread them before masking */
+    private static int mix(int code) {
+        int h = code * 0x9E3779B1;
+        return h ^ (h >>> 16);
+    }
+}
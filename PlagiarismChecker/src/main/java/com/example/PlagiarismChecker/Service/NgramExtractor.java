@@ -0,0 +1,274 @@
+package com.example.PlagiarismChecker.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Extracts n-gram count vectors from normalized content with a rolling code,
+ * so no substring is ever allocated and longer grams cost the same as
+ * trigrams. Codes are counted in a per-thread {@link NgramCounter}, so the
+ * only allocation per call is the resulting vector.
+ *
+ * CHAR grams of up to 6 characters are packed exactly (5 bits per symbol, the
+ * CHAR:3 code is the classic trigram code); longer CHAR grams and WORD grams
+ * use a 64-bit polynomial rolling hash folded to an int.
+ *
+ * The active configuration (e.g. "CHAR:3", "WORD:2") is stored next to every
+ * vector so vectors built under another configuration are never compared.
+ */
+@Component
+public class NgramExtractor {
+
+	private static final Logger logger = LoggerFactory.getLogger(NgramExtractor.class);
+
+	public static final String DEFAULT_CONFIG = "CHAR:3";
+
+	private static final int BITS_PER_SYMBOL = 5;
+
+	private static final int MAX_PACKED_LENGTH = 6;
+
+	private static final long BASE = 0x100000001B3L;
+
+	public enum Unit {
+		CHAR, WORD
+	}
+
+	private final Unit unit;
+
+	private final int length;
+
+	private final String config;
+
+	/** BASE^(length - 1), drops the outgoing element from the rolling hash */
+	private final long outgoingPower;
+
+	public NgramExtractor(@Value("${plagiarism.trigram.length:3}") int length,
+			@Value("${plagiarism.ngram.unit:CHAR}") String unit) {
+		if (length < 1 || length > 16) {
+			throw new IllegalArgumentException("plagiarism.trigram.length must be between 1 and 16: " + length);
+		}
+		this.unit = Unit.valueOf(unit.trim().toUpperCase());
+		this.length = length;
+		this.config = this.unit + ":" + length;
+
+		long power = 1;
+		for (int i = 1; i < length; i++) {
+			power *= BASE;
+		}
+		this.outgoingPower = power;
+
+		logger.info("N-gram configuration: {}", config);
+	}
+
+	/** Identifier of the active configuration, stored in code_files.ngram_config */
+	public String config() {
+		return config;
+	}
+
+	public Unit unit() {
+		return unit;
+	}
+
+	public int length() {
+		return length;
+	}
+
+	/**
+	 * True when vectors use the classic trigram codes, whose JSONB keys are the
+	 * trigram strings themselves; other configurations store decimal codes.
+	 */
+	public boolean usesTrigramKeys() {
+		return DEFAULT_CONFIG.equals(config);
+	}
+
+	/**
+	 * Counts the n-grams of the first {@code limit} characters of content.
+	 */
+	public TrigramVector extract(CharSequence content, int limit) {
+		if (content == null) {
+			return TrigramVector.EMPTY;
+		}
+		Accumulator accumulator = accumulator(limit);
+		accumulator.accept(content);
+		return accumulator.vector();
+	}
+
+	/**
+	 * Starts an incremental extraction over the first {@code limit} characters
+	 * fed to it, for callers that see the content in chunks. Counts go to the
+	 * per-thread counter, so the accumulator must be finished with
+	 * {@link Accumulator#vector()} before another extraction starts on the
+	 * same thread.
+	 */
+	public Accumulator accumulator(int limit) {
+		return new Accumulator(limit);
+	}
+
+	/**
+	 * Rolling extraction state carried across chunks: the packed code or
+	 * polynomial hash of the current window, the last {@code length} symbols
+	 * or token hashes, and the token being hashed.
+	 */
+	public final class Accumulator {
+
+		private final NgramCounter counter = NgramCounter.forCurrentThread();
+
+		private final long[] ring = new long[length];
+
+		private final int mask = length <= MAX_PACKED_LENGTH ? (1 << (BITS_PER_SYMBOL * length)) - 1 : 0;
+
+		private int remaining;
+
+		/** Characters (CHAR) or completed tokens (WORD) seen so far */
+		private long seen;
+
+		private int code;
+
+		private long hash;
+
+		private long token;
+
+		private boolean inToken;
+
+		private Accumulator(int limit) {
+			this.remaining = limit;
+		}
+
+		public void accept(char[] buffer, int offset, int count) {
+			int end = offset + Math.min(count, remaining);
+			remaining -= end - offset;
+			for (int i = offset; i < end; i++) {
+				accept(buffer[i]);
+			}
+		}
+
+		public void accept(CharSequence content) {
+			int end = Math.min(content.length(), remaining);
+			remaining -= end;
+			for (int i = 0; i < end; i++) {
+				accept(content.charAt(i));
+			}
+		}
+
+		private void accept(char c) {
+			if (unit == Unit.WORD) {
+				acceptWordChar(c);
+			} else if (length <= MAX_PACKED_LENGTH) {
+				code = ((code << BITS_PER_SYMBOL) | TrigramVector.symbol(c)) & mask;
+				if (++seen >= length) {
+					counter.add(code);
+				}
+			} else {
+				int slot = (int) (seen % length);
+				int symbol = TrigramVector.symbol(c);
+				if (seen >= length) {
+					hash -= ring[slot] * outgoingPower;
+				}
+				ring[slot] = symbol;
+				hash = hash * BASE + symbol;
+				if (++seen >= length) {
+					counter.add(fold(hash));
+				}
+			}
+		}
+
+		/**
+		 * Word grams over the space-separated token stream; each token is hashed
+		 * in place and the last {@code length} token hashes are kept in the ring.
+		 */
+		private void acceptWordChar(char c) {
+			if (c != ' ') {
+				if (!inToken) {
+					token = 0xCBF29CE484222325L;
+					inToken = true;
+				}
+				token = (token ^ c) * 0x100000001B3L;
+				return;
+			}
+			if (inToken) {
+				endToken();
+			}
+		}
+
+		private void endToken() {
+			inToken = false;
+			int slot = (int) (seen % length);
+			if (seen >= length) {
+				hash -= ring[slot] * outgoingPower;
+			}
+			ring[slot] = token;
+			hash = hash * BASE + token;
+			if (++seen >= length) {
+				counter.add(fold(hash));
+			}
+		}
+
+		/** Ends the extraction; the trailing token of the stream closes its last gram */
+		public TrigramVector vector() {
+			if (inToken) {
+				endToken();
+			}
+			return counter.toVector();
+		}
+	}
+
+	/**
+	 * Expands into the boxed map stored in the JSONB column.
+	 */
+	public Map<String, Integer> toCounts(TrigramVector vector) {
+		if (usesTrigramKeys()) {
+			return vector.toCounts();
+		}
+		int[] codes = vector.codes();
+		int[] counts = vector.counts();
+		Map<String, Integer> map = new HashMap<>(codes.length * 2);
+		for (int i = 0; i < codes.length; i++) {
+			map.put(Integer.toString(codes[i]), counts[i]);
+		}
+		return map;
+	}
+
+	/**
+	 * Inverse of {@link #toCounts(TrigramVector)} for vectors stored under the
+	 * active configuration.
+	 */
+	public TrigramVector fromCounts(Map<String, Integer> counts) {
+		if (usesTrigramKeys()) {
+			return TrigramVector.fromCounts(counts);
+		}
+		if (counts == null || counts.isEmpty()) {
+			return TrigramVector.EMPTY;
+		}
+		long[] packed = new long[counts.size()];
+		int n = 0;
+		for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+			Integer count = entry.getValue();
+			if (count == null || count <= 0) {
+				continue;
+			}
+			packed[n++] = TrigramVector.pack(parseCode(entry.getKey()), count);
+		}
+		return TrigramVector.fromPacked(packed, n);
+	}
+
+	static int parseCode(String key) {
+		try {
+			return Integer.parseInt(key);
+		} catch (NumberFormatException e) {
+			throw new IllegalStateException("Vector key '" + key + "' is not an n-gram code", e);
+		}
+	}
+
+	/** Murmur3 finalizer folded to 32 bits */
+	private static int fold(long h) {
+		h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+		h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+		h ^= h >>> 33;
+		return (int) (h ^ (h >>> 32));
+	}
+}
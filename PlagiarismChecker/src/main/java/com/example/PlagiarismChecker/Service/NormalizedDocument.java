@@ -0,0 +1,107 @@
+package com.example.PlagiarismChecker.Service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Sink collecting one streaming normalization pass: the normalized text, its
+ * SHA-256 content hash and its n-gram vector, all fed from the same windows
+ * as they arrive so the text is never traversed again at ingest.
+ *
+ * When the normalizer emits a structural stream it also feeds the lexical
+ * normalization to {@link #lexical()}; the content hash is then taken over
+ * that text instead, so copies that only differ in names stay distinct
+ * uploads while sharing their n-grams.
+ */
+public final class NormalizedDocument implements CodeNormalizer.Sink {
+
+    /** Token stream of the lexer, stored in code_files.normalization */
+    public static final String LEXICAL = "LEXICAL";
+
+    /** Structural token stream of a parsed source */
+    public static final String AST = "AST";
+
+    private final StringBuilder text = new StringBuilder();
+
+    private final MessageDigest digest;
+
+    private final byte[] bytes = new byte[8192];
+
+    private final NgramExtractor.Accumulator ngrams;
+
+    private boolean structural;
+
+    private String contentHash;
+
+    private TrigramVector vector;
+
+    public NormalizedDocument(NgramExtractor.Accumulator ngrams) {
+        this.ngrams = ngrams;
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 algorithm not available", e);
+        }
+    }
+
+    @Override
+    public void accept(char[] buffer, int offset, int length) {
+        text.append(buffer, offset, length);
+        ngrams.accept(buffer, offset, length);
+        if (!structural) {
+            hash(buffer, offset, length);
+        }
+    }
+
+    /** Marks the accepted stream as structural; the content hash covers what this sink receives */
+    @Override
+    public CodeNormalizer.Sink lexical() {
+        if (!structural) {
+            structural = true;
+            digest.reset();
+        }
+        return this::hash;
+    }
+
+    private void hash(char[] buffer, int offset, int length) {
+        // Normalized output is [a-z_ ] only, so each char is its own UTF-8 byte
+        for (int done = 0; done < length;) {
+            int n = Math.min(bytes.length, length - done);
+            for (int i = 0; i < n; i++) {
+                bytes[i] = (byte) buffer[offset + done + i];
+            }
+            digest.update(bytes, 0, n);
+            done += n;
+        }
+    }
+
+    public String text() {
+        return text.toString();
+    }
+
+    public boolean isEmpty() {
+        return text.length() == 0;
+    }
+
+    /** {@link #AST} when the text is a structural stream, {@link #LEXICAL} otherwise */
+    public String normalization() {
+        return structural ? AST : LEXICAL;
+    }
+
+    /** Lowercase hex SHA-256 of the lexically normalized text; ends the digest */
+    public String contentHash() {
+        if (contentHash == null) {
+            contentHash = HexFormat.of().formatHex(digest.digest());
+        }
+        return contentHash;
+    }
+
+    /** N-gram vector of the normalized text, with its norm; ends the extraction */
+    public TrigramVector vector() {
+        if (vector == null) {
+            vector = ngrams.vector();
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.PlagiarismChecker.Service;
+
+/**
+ * How a code search query is matched against normalized content.
+ */
+public enum SearchMode {
+
+    /** The query occurs verbatim, possibly spanning several tokens */
+    SUBSTRING,
+
+    /** Every whitespace-separated query token occurs as a whole token, in any order */
+    TOKEN
+}
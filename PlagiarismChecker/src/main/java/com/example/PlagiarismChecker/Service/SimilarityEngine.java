@@ -0,0 +1,16 @@
+package com.example.PlagiarismChecker.Service;
+
+/**
+ * Scoring engine used by compare and compare-all.
+ */
+public enum SimilarityEngine {
+
+    /** Exact cosine over sparse trigram counts */
+    SPARSE,
+
+    /** Approximate cosine over feature-hashed dense vectors, SIMD dot products */
+    DENSE,
+
+    /** Share of the target's winnowing fingerprints found in the other file, robust to code copied into larger files */
+    WINNOWING
+}
@@ -0,0 +1,173 @@
+package com.example.PlagiarismChecker.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Exhaustive global top-K for compare-all. The id space is split into
+ * partitions that are streamed in parallel; each worker keeps a bounded
+ * min-heap of its best K matches, and the heaps are merged into one ranking.
+ * Memory is O(K) per worker no matter how large the corpus is.
+ */
+@Service
+public class TopKScanService {
+
+	private static final Logger logger = LoggerFactory.getLogger(TopKScanService.class);
+
+	private static final Comparator<SimilarityResult> BY_SIMILARITY = Comparator
+			.comparingDouble(SimilarityResult::getSimilarity);
+
+	private final JdbcVectorScanService vectorScanService;
+
+	private final CustomCosineSimilarity cosineSimilarity;
+
+	private final int partitions;
+
+	private final ExecutorService executorService;
+
+	public TopKScanService(JdbcVectorScanService vectorScanService, CustomCosineSimilarity cosineSimilarity,
+			@Value("${plagiarism.scan.partitions:4}") int partitions) {
+		this.vectorScanService = vectorScanService;
+		this.cosineSimilarity = cosineSimilarity;
+		this.partitions = Math.max(1, partitions);
+		this.executorService = Executors.newFixedThreadPool(this.partitions);
+	}
+
+	/**
+	 * Rows whose stored norm and trigram count bound them below the current
+	 * K-th best score are skipped without being decoded, so once a row has been
+	 * skipped that way the reported total is only a lower bound and is flagged
+	 * as inexact.
+	 *
+	 * @param excludeFileId file to leave out of the ranking (the target itself)
+	 * @param language      upper-case language filter, or null for all
+	 * @param minSimilarity minimum similarity as a percentage
+	 * @param limit         number of best matches to keep
+	 */
+	public TopMatches topMatches(TrigramVector target, Long excludeFileId, String language, double minSimilarity,
+			int limit) {
+		if (target == null || target.isEmpty() || limit <= 0) {
+			return new TopMatches(List.of(), 0);
+		}
+
+		long[] bounds = vectorScanService.idBounds(language);
+		if (bounds == null) {
+			return new TopMatches(List.of(), 0);
+		}
+
+		long startTime = System.currentTimeMillis();
+		long span = bounds[1] - bounds[0] + 1;
+		long step = Math.max(1, (span + partitions - 1) / partitions);
+
+		List<CompletableFuture<PartitionResult>> futures = new ArrayList<>();
+		for (long from = bounds[0]; from <= bounds[1]; from += step) {
+			long fromId = from;
+			long toId = Math.min(bounds[1] + 1, from + step);
+			futures.add(CompletableFuture.supplyAsync(
+					() -> scanPartition(target, excludeFileId, language, minSimilarity, limit, fromId, toId),
+					executorService));
+		}
+
+		PriorityQueue<SimilarityResult> merged = new PriorityQueue<>(BY_SIMILARITY);
+		long total = 0;
+		long scanned = 0;
+		long pruned = 0;
+		long cutOff = 0;
+		for (PartitionResult partition : futures.stream().map(CompletableFuture::join).collect(Collectors.toList())) {
+			total += partition.qualified;
+			scanned += partition.scanned;
+			pruned += partition.pruned;
+			cutOff += partition.cutOff;
+			for (SimilarityResult result : partition.best) {
+				offer(merged, result, limit);
+			}
+		}
+
+		List<SimilarityResult> ranked = new ArrayList<>(merged);
+		ranked.sort(BY_SIMILARITY.reversed());
+
+		logger.info("Scanned {} vectors in {} partitions in {}ms, {} pruned by norm bound ({} below the top {}), {} qualified",
+				scanned, futures.size(), System.currentTimeMillis() - startTime, pruned, cutOff, limit, total);
+		return new TopMatches(ranked, total, cutOff == 0);
+	}
+
+	private PartitionResult scanPartition(TrigramVector target, Long excludeFileId, String language,
+			double minSimilarity, int limit, long fromId, long toId) {
+		PartitionResult partition = new PartitionResult();
+
+		// Skip decoding rows whose norm/cardinality bound cannot reach the current cut-off
+		JdbcVectorScanService.VectorRowFilter prefilter = (norm, trigramCount) -> {
+			double bound = CustomCosineSimilarity.upperBound(target.size(), target.norm(), trigramCount, norm) * 100;
+			if (bound < minSimilarity) {
+				partition.pruned++;
+				return false;
+			}
+			if (partition.best.size() >= limit && bound <= partition.best.peek().getSimilarity()) {
+				// May still qualify, so the total stops being exact
+				partition.pruned++;
+				partition.cutOff++;
+				return false;
+			}
+			return true;
+		};
+
+		partition.scanned = vectorScanService.scan(language, fromId, toId, prefilter,
+				(fileId, fileName, fileLanguage, vector) -> {
+			if (excludeFileId != null && fileId == excludeFileId) {
+				return;
+			}
+			double similarity = cosineSimilarity.cosineSimilarity(target, vector) * 100;
+			if (similarity < minSimilarity) {
+				return;
+			}
+			partition.qualified++;
+			if (partition.best.size() < limit || similarity > partition.best.peek().getSimilarity()) {
+				offer(partition.best, new SimilarityResult(fileId, fileName, fileLanguage, similarity), limit);
+			}
+		});
+		return partition;
+	}
+
+	/**
+	 * Adds to a min-heap capped at limit entries, evicting the weakest match.
+	 */
+	private static void offer(PriorityQueue<SimilarityResult> heap, SimilarityResult result, int limit) {
+		if (heap.size() < limit) {
+			heap.add(result);
+		} else if (result.getSimilarity() > heap.peek().getSimilarity()) {
+			heap.poll();
+			heap.add(result);
+		}
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executorService.shutdown();
+	}
+
+	private static final class PartitionResult {
+
+		private final PriorityQueue<SimilarityResult> best = new PriorityQueue<>(BY_SIMILARITY);
+
+		private long qualified;
+
+		private long scanned;
+
+		private long pruned;
+
+		private long cutOff;
+	}
+}
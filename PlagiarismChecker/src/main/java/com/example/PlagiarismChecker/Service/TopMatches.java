@@ -0,0 +1,17 @@
+package com.example.PlagiarismChecker.Service;
+
+import java.util.List;
+
+/**
+ * Best matches of a compare-all query, in descending similarity order, plus the
+ * number of files that passed the filters overall. That number is only a lower
+ * bound when exactTotal is false: engines that prune rows against the current
+ * K-th best score, or that only score a candidate subset, never see every
+ * qualifying file.
+ */
+public record TopMatches(List<SimilarityResult> results, long totalMatches, boolean exactTotal) {
+
+    public TopMatches(List<SimilarityResult> results, long totalMatches) {
+        this(results, totalMatches, true);
+    }
+}
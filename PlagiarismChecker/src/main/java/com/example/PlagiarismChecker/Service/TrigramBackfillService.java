@@ -0,0 +1,123 @@
+package com.example.PlagiarismChecker.Service;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.PlagiarismChecker.Repository.CodeFileRepository;
+import com.example.PlagiarismChecker.model.CodeFile;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Scheduled worker that gives every file a vector of the active n-gram
+ * configuration ahead of time, so neither startup nor compares extract one.
+ * The first run hands stale files to the backlog by clearing their
+ * trigrams_generated flag and retries files that failed before. Each run
+ * claims chunks with FOR UPDATE SKIP LOCKED (several instances can run side
+ * by side), extracts the vectors in parallel, writes each chunk in one batch
+ * and indexes it, until the backlog is empty or the run's time slice is used
+ * up.
+ *
+ * Metrics: plagiarism.backfill.backlog (files still pending, refreshed every
+ * run) and plagiarism.backfill.files (files backfilled).
+ */
+@Service
+public class TrigramBackfillService {
+
+	private static final Logger logger = LoggerFactory.getLogger(TrigramBackfillService.class);
+
+	private final CodeFileService codeFileService;
+
+	private final CodeFileRepository codeFileRepository;
+
+	private final NgramExtractor ngramExtractor;
+
+	private final boolean enabled;
+
+	private final int chunkSize;
+
+	private final long maxRunMillis;
+
+	private final ExecutorService executorService;
+
+	private final AtomicLong backlog = new AtomicLong();
+
+	private final Counter backfilled;
+
+	private volatile boolean staleMarked;
+
+	public TrigramBackfillService(CodeFileService codeFileService, CodeFileRepository codeFileRepository,
+			NgramExtractor ngramExtractor, MeterRegistry meterRegistry,
+			@Value("${plagiarism.backfill.enabled:true}") boolean enabled,
+			@Value("${plagiarism.backfill.chunk-size:200}") int chunkSize,
+			@Value("${plagiarism.backfill.parallelism:4}") int parallelism,
+			@Value("${plagiarism.backfill.max-run-ms:20000}") long maxRunMillis) {
+		this.codeFileService = codeFileService;
+		this.codeFileRepository = codeFileRepository;
+		this.ngramExtractor = ngramExtractor;
+		this.enabled = enabled;
+		this.chunkSize = Math.max(1, chunkSize);
+		this.maxRunMillis = maxRunMillis;
+		this.executorService = Executors.newFixedThreadPool(Math.max(1, parallelism));
+
+		Gauge.builder("plagiarism.backfill.backlog", backlog, AtomicLong::get)
+				.description("Files without a vector of the active n-gram configuration")
+				.register(meterRegistry);
+		this.backfilled = Counter.builder("plagiarism.backfill.files")
+				.description("Files whose vectors were generated by the backfill worker")
+				.register(meterRegistry);
+	}
+
+	@Scheduled(initialDelayString = "${plagiarism.backfill.initial-delay-ms:10000}",
+			fixedDelayString = "${plagiarism.backfill.interval-ms:30000}")
+	public void runBackfill() {
+		if (!enabled) {
+			return;
+		}
+
+		long start = System.currentTimeMillis();
+		long total = 0;
+		try {
+			if (!staleMarked) {
+				int retried = codeFileRepository.resetFailedVectors();
+				int stale = codeFileRepository.markStaleVectors(ngramExtractor.config());
+				staleMarked = true;
+				logger.info("Backfill queued {} files with stale vectors and {} failed before", stale, retried);
+			}
+			while (System.currentTimeMillis() - start < maxRunMillis) {
+				List<CodeFile> files = codeFileService.backfillVectors(chunkSize, executorService);
+				if (files.isEmpty()) {
+					break;
+				}
+				// Indexed only after the chunk committed
+				codeFileService.indexInsertedFiles(files);
+				backfilled.increment(files.size());
+				total += files.size();
+			}
+		} catch (RuntimeException e) {
+			logger.error("Trigram backfill failed after {} files: {}", total, e.getMessage(), e);
+		}
+
+		backlog.set(codeFileRepository.countFilesWithoutTrigrams());
+		if (total > 0) {
+			logger.info("Backfilled vectors for {} files in {}ms, {} left", total,
+					System.currentTimeMillis() - start, backlog.get());
+		}
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executorService.shutdown();
+	}
+}
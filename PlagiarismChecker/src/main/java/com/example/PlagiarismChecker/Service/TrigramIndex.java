@@ -0,0 +1,338 @@
+package com.example.PlagiarismChecker.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory inverted index from trigram code to a posting list of
+ * (file slot, count). Compare-all accumulates dot products only over the
+ * query's own trigrams, so files sharing nothing with the target are never
+ * touched and the result is a true global ranking.
+ *
+ * Each indexed file gets a dense int slot; postings reference slots so the
+ * per-query accumulator is a plain long[] instead of a map keyed by file ID.
+ * Slots of removed files are reused, so the slot range, and with it the
+ * accumulator, stays bounded by the peak number of indexed files. Every file
+ * remembers its position in each of its posting lists, so removal swaps the
+ * last entry into the hole instead of searching and shifting the list.
+ */
+@Component
+public class TrigramIndex {
+
+	private static final Logger logger = LoggerFactory.getLogger(TrigramIndex.class);
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private final Map<Integer, PostingList> postings = new HashMap<>();
+
+	private final Map<Long, Integer> slotsByFileId = new HashMap<>();
+
+	private final Deque<Integer> freeSlots = new ArrayDeque<>();
+
+	private IndexedFile[] files = new IndexedFile[1024];
+
+	private int nextSlot = 0;
+
+	private int liveFiles = 0;
+
+	/**
+	 * Adds or replaces the postings for a file.
+	 */
+	public void add(Long fileId, String fileName, String language, TrigramVector vector) {
+		if (fileId == null || vector == null || vector.isEmpty()) {
+			return;
+		}
+
+		lock.writeLock().lock();
+		try {
+			removeLocked(fileId);
+
+			int slot = !freeSlots.isEmpty() ? freeSlots.pop() : nextSlot++;
+			if (slot == files.length) {
+				files = Arrays.copyOf(files, files.length * 2);
+			}
+			int[] codes = vector.codes();
+			int[] counts = vector.counts();
+			int[] positions = new int[codes.length];
+			for (int i = 0; i < codes.length; i++) {
+				positions[i] = postings.computeIfAbsent(codes[i], code -> new PostingList()).add(slot, counts[i], i);
+			}
+			files[slot] = new IndexedFile(fileId, fileName, language, vector, positions);
+			slotsByFileId.put(fileId, slot);
+			liveFiles++;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void remove(Long fileId) {
+		lock.writeLock().lock();
+		try {
+			removeLocked(fileId);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void clear() {
+		lock.writeLock().lock();
+		try {
+			postings.clear();
+			slotsByFileId.clear();
+			files = new IndexedFile[1024];
+			freeSlots.clear();
+			nextSlot = 0;
+			liveFiles = 0;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return liveFiles;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Global top-K by cosine similarity against every indexed file sharing at
+	 * least one trigram with the query.
+	 *
+	 * @param excludeFileId  file to leave out of the ranking (the target itself)
+	 * @param language       upper-case language filter, or null for all
+	 * @param minSimilarity  minimum similarity as a percentage
+	 * @param limit          number of best matches to keep
+	 * @return best matches in descending order (similarity as an unrounded
+	 *         percentage) plus the total number of files that qualified
+	 */
+	public TopMatches topMatches(TrigramVector query, Long excludeFileId, String language, double minSimilarity,
+			int limit) {
+		if (query == null || query.isEmpty() || query.norm() == 0.0 || limit <= 0) {
+			return new TopMatches(List.of(), 0);
+		}
+
+		lock.readLock().lock();
+		try {
+			long[] dotProducts = new long[nextSlot];
+			int[] touched = new int[Math.min(nextSlot, 1024)];
+			int touchedCount = 0;
+
+			int[] codes = query.codes();
+			int[] counts = query.counts();
+			for (int i = 0; i < codes.length; i++) {
+				PostingList list = postings.get(codes[i]);
+				if (list == null) {
+					continue;
+				}
+				int queryCount = counts[i];
+				for (int p = 0; p < list.size; p++) {
+					int slot = list.slots[p];
+					if (dotProducts[slot] == 0) {
+						if (touchedCount == touched.length) {
+							touched = Arrays.copyOf(touched, touched.length * 2);
+						}
+						touched[touchedCount++] = slot;
+					}
+					dotProducts[slot] += (long) queryCount * list.counts[p];
+				}
+			}
+
+			PriorityQueue<SimilarityResult> best = new PriorityQueue<>(
+					Comparator.comparingDouble(SimilarityResult::getSimilarity));
+			long total = 0;
+
+			for (int t = 0; t < touchedCount; t++) {
+				int slot = touched[t];
+				IndexedFile file = files[slot];
+				if (file == null || file.fileId.equals(excludeFileId)) {
+					continue;
+				}
+				if (language != null && !language.equals(file.language)) {
+					continue;
+				}
+
+				double similarity = dotProducts[slot] / (query.norm() * file.vector.norm()) * 100;
+				if (similarity < minSimilarity) {
+					continue;
+				}
+
+				total++;
+				if (best.size() < limit) {
+					best.add(new SimilarityResult(file.fileId, file.fileName, file.language, similarity));
+				} else if (similarity > best.peek().getSimilarity()) {
+					best.poll();
+					best.add(new SimilarityResult(file.fileId, file.fileName, file.language, similarity));
+				}
+			}
+
+			List<SimilarityResult> ranked = new ArrayList<>(best);
+			ranked.sort(Comparator.comparingDouble(SimilarityResult::getSimilarity).reversed());
+
+			logger.debug("Index query touched {} of {} files, {} qualified", touchedCount, liveFiles, total);
+			return new TopMatches(ranked, total);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Ids of the indexed files whose vectors contain every given code, in
+	 * ascending order, for code search. Intersection starts from the shortest
+	 * posting list, so cost is bounded by the postings of the query's codes.
+	 * With no codes, every indexed file qualifies.
+	 *
+	 * @param language upper-case language filter, or null for all
+	 * @param afterId  only ids greater than this
+	 */
+	public long[] filesContainingAll(int[] codes, String language, long afterId) {
+		lock.readLock().lock();
+		try {
+			int[] slots;
+			int count;
+			if (codes.length == 0) {
+				slots = new int[nextSlot];
+				for (int slot = 0; slot < nextSlot; slot++) {
+					slots[slot] = slot;
+				}
+				count = nextSlot;
+			} else {
+				PostingList[] lists = new PostingList[codes.length];
+				for (int i = 0; i < codes.length; i++) {
+					lists[i] = postings.get(codes[i]);
+					if (lists[i] == null) {
+						return new long[0];
+					}
+				}
+				Arrays.sort(lists, Comparator.comparingInt(list -> list.size));
+
+				slots = Arrays.copyOf(lists[0].slots, lists[0].size);
+				count = slots.length;
+				BitSet present = new BitSet(nextSlot);
+				for (int i = 1; i < lists.length && count > 0; i++) {
+					present.clear();
+					for (int p = 0; p < lists[i].size; p++) {
+						present.set(lists[i].slots[p]);
+					}
+					int kept = 0;
+					for (int c = 0; c < count; c++) {
+						if (present.get(slots[c])) {
+							slots[kept++] = slots[c];
+						}
+					}
+					count = kept;
+				}
+			}
+
+			long[] ids = new long[count];
+			int n = 0;
+			for (int c = 0; c < count; c++) {
+				IndexedFile file = files[slots[c]];
+				if (file != null && file.fileId > afterId && (language == null || language.equals(file.language))) {
+					ids[n++] = file.fileId;
+				}
+			}
+			ids = Arrays.copyOf(ids, n);
+			Arrays.sort(ids);
+			return ids;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private void removeLocked(Long fileId) {
+		Integer slot = slotsByFileId.remove(fileId);
+		if (slot == null) {
+			return;
+		}
+
+		IndexedFile file = files[slot];
+		files[slot] = null;
+		freeSlots.push(slot);
+		liveFiles--;
+
+		int[] codes = file.vector.codes();
+		for (int i = 0; i < codes.length; i++) {
+			PostingList list = postings.get(codes[i]);
+			int position = file.positions[i];
+			list.removeAt(position);
+			if (list.size == 0) {
+				postings.remove(codes[i]);
+			} else if (position < list.size) {
+				// The former last entry now sits in the hole
+				files[list.slots[position]].positions[list.entries[position]] = position;
+			}
+		}
+	}
+
+	/**
+	 * @param positions position of this file in the posting list of each of
+	 *                  its codes, parallel to the vector's codes
+	 */
+	private record IndexedFile(Long fileId, String fileName, String language, TrigramVector vector,
+			int[] positions) {
+	}
+
+	/**
+	 * Growable parallel arrays of (slot, count, index of the code in that
+	 * file's vector), unordered.
+	 */
+	private static final class PostingList {
+
+		private int[] slots = new int[4];
+
+		private int[] counts = new int[4];
+
+		private int[] entries = new int[4];
+
+		private int size = 0;
+
+		/**
+		 * @return position of the new posting
+		 */
+		int add(int slot, int count, int entry) {
+			if (size == slots.length) {
+				resize(size * 2);
+			}
+			slots[size] = slot;
+			counts[size] = count;
+			entries[size] = entry;
+			return size++;
+		}
+
+		/**
+		 * Moves the last posting into the given position.
+		 */
+		void removeAt(int position) {
+			size--;
+			slots[position] = slots[size];
+			counts[position] = counts[size];
+			entries[position] = entries[size];
+			if (slots.length > 16 && size < slots.length / 4) {
+				resize(slots.length / 2);
+			}
+		}
+
+		private void resize(int length) {
+			slots = Arrays.copyOf(slots, length);
+			counts = Arrays.copyOf(counts, length);
+			entries = Arrays.copyOf(entries, length);
+		}
+	}
+}
@@ -0,0 +1,248 @@
+package com.example.PlagiarismChecker.Service;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compact sparse trigram vector: trigram codes sorted ascending, their counts in
+ * a parallel array and the L2 norm computed once at construction.
+ *
+ * After normalization the alphabet is only [a-z_ ], so every trigram is packed
+ * into a 15-bit int (5 bits per character) instead of a boxed String key.
+ */
+public final class TrigramVector implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final TrigramVector EMPTY = new TrigramVector(new int[0], new int[0]);
+
+    private static final int BITS_PER_SYMBOL = 5;
+    private static final int SYMBOL_MASK = (1 << BITS_PER_SYMBOL) - 1;
+
+    /** Symbol used for any character outside [a-z_ ] (legacy, un-normalized vectors) */
+    private static final int OTHER_SYMBOL = 28;
+
+    private final int[] codes;
+    private final int[] counts;
+    private final double norm;
+
+    /**
+     * @param codes  trigram codes, strictly ascending
+     * @param counts occurrence count for each code, all positive
+     */
+    TrigramVector(int[] codes, int[] counts) {
+        if (codes.length != counts.length) {
+            throw new IllegalArgumentException("codes and counts must have the same length");
+        }
+        this.codes = codes;
+        this.counts = counts;
+
+        long sumOfSquares = 0;
+        for (int count : counts) {
+            sumOfSquares += (long) count * count;
+        }
+        this.norm = Math.sqrt(sumOfSquares);
+    }
+
+    /**
+     * Builds a vector from the boxed trigram map used by the JSONB column.
+     */
+    public static TrigramVector fromCounts(Map<String, Integer> trigramCounts) {
+        if (trigramCounts == null || trigramCounts.isEmpty()) {
+            return EMPTY;
+        }
+
+        // Pack (code, count) into one long so a primitive sort orders by code
+        long[] packed = new long[trigramCounts.size()];
+        int n = 0;
+        for (Map.Entry<String, Integer> entry : trigramCounts.entrySet()) {
+            String key = entry.getKey();
+            Integer count = entry.getValue();
+            if (key == null || key.length() != 3 || count == null || count <= 0) {
+                continue;
+            }
+            packed[n++] = pack(encode(key.charAt(0), key.charAt(1), key.charAt(2)), count);
+        }
+        return fromPacked(packed, n);
+    }
+
+    static long pack(int code, int count) {
+        return ((long) code << 32) | (count & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Builds a vector from (code, count) pairs packed with {@link #pack}, in any
+     * order; the array is sorted in place and duplicate codes are summed.
+     */
+    static TrigramVector fromPacked(long[] packed, int n) {
+        if (n == 0) {
+            return EMPTY;
+        }
+        Arrays.sort(packed, 0, n);
+
+        int[] codes = new int[n];
+        int[] counts = new int[n];
+        int size = 0;
+        for (int i = 0; i < n; i++) {
+            int code = (int) (packed[i] >>> 32);
+            int count = (int) packed[i];
+            if (size > 0 && codes[size - 1] == code) {
+                // Distinct legacy keys can collapse onto OTHER_SYMBOL
+                counts[size - 1] += count;
+            } else {
+                codes[size] = code;
+                counts[size] = count;
+                size++;
+            }
+        }
+
+        return size == n
+                ? new TrigramVector(codes, counts)
+                : new TrigramVector(Arrays.copyOf(codes, size), Arrays.copyOf(counts, size));
+    }
+
+    public static int encode(char c0, char c1, char c2) {
+        return (symbol(c0) << (2 * BITS_PER_SYMBOL)) | (symbol(c1) << BITS_PER_SYMBOL) | symbol(c2);
+    }
+
+    static int symbol(char c) {
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a' + 1;
+        }
+        if (c == ' ') {
+            return 0;
+        }
+        if (c == '_') {
+            return 27;
+        }
+        return OTHER_SYMBOL;
+    }
+
+    private static char character(int symbol) {
+        if (symbol == 0) {
+            return ' ';
+        }
+        if (symbol <= 26) {
+            return (char) ('a' + symbol - 1);
+        }
+        return symbol == 27 ? '_' : '?';
+    }
+
+    public static String decode(int code) {
+        return new String(new char[] {
+                character((code >>> (2 * BITS_PER_SYMBOL)) & SYMBOL_MASK),
+                character((code >>> BITS_PER_SYMBOL) & SYMBOL_MASK),
+                character(code & SYMBOL_MASK) });
+    }
+
+    /**
+     * Expands back into the boxed representation stored in the JSONB column.
+     */
+    public Map<String, Integer> toCounts() {
+        Map<String, Integer> map = new HashMap<>(codes.length * 2);
+        for (int i = 0; i < codes.length; i++) {
+            map.put(decode(codes[i]), counts[i]);
+        }
+        return map;
+    }
+
+    /**
+     * Encodes for the trigram_codes BYTEA column: a varint entry count, then per
+     * entry the varint gap to the previous code (unsigned, first gap from 0)
+     * and the varint count. Gaps between sorted codes are small, so most
+     * entries take two or three bytes.
+     */
+    public byte[] toBytes() {
+        byte[] bytes = new byte[5 + codes.length * 10];
+        int position = putVarint(bytes, 0, codes.length);
+        int previous = 0;
+        for (int i = 0; i < codes.length; i++) {
+            position = putVarint(bytes, position, codes[i] - previous);
+            position = putVarint(bytes, position, counts[i]);
+            previous = codes[i];
+        }
+        return Arrays.copyOf(bytes, position);
+    }
+
+    /**
+     * @return the decoded vector, or null if the bytes are missing or
+     *         malformed
+     */
+    public static TrigramVector fromBytes(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        int[] cursor = { 0 };
+        int size = getVarint(bytes, cursor);
+        // Every entry takes at least two bytes
+        if (size < 0 || size > (bytes.length - 1) / 2) {
+            return null;
+        }
+        if (size == 0) {
+            return EMPTY;
+        }
+        int[] codes = new int[size];
+        int[] counts = new int[size];
+        int previous = 0;
+        for (int i = 0; i < size; i++) {
+            int code = previous + getVarint(bytes, cursor);
+            int count = getVarint(bytes, cursor);
+            if (cursor[0] < 0 || count <= 0 || (i > 0 && code <= previous)) {
+                return null;
+            }
+            codes[i] = code;
+            counts[i] = count;
+            previous = code;
+        }
+        return cursor[0] == bytes.length ? new TrigramVector(codes, counts) : null;
+    }
+
+    private static int putVarint(byte[] bytes, int position, int value) {
+        while ((value & ~0x7F) != 0) {
+            bytes[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[position++] = (byte) value;
+        return position;
+    }
+
+    /** Reads at cursor[0] and advances it; sets it negative on truncated input */
+    private static int getVarint(byte[] bytes, int[] cursor) {
+        int position = cursor[0];
+        int value = 0;
+        for (int shift = 0; shift < 35 && position >= 0 && position < bytes.length; shift += 7) {
+            byte b = bytes[position++];
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                cursor[0] = position;
+                return value;
+            }
+        }
+        cursor[0] = -1;
+        return 0;
+    }
+
+    public int size() {
+        return codes.length;
+    }
+
+    public boolean isEmpty() {
+        return codes.length == 0;
+    }
+
+    /** Backing array, do not modify */
+    public int[] codes() {
+        return codes;
+    }
+
+    /** Backing array, do not modify */
+    public int[] counts() {
+        return counts;
+    }
+
+    public double norm() {
+        return norm;
+    }
+}
@@ -0,0 +1,305 @@
+package com.example.PlagiarismChecker.Service;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.BitSet;
+
+/**
+ * One memory-mapped vector segment file:
+ *
+ * <pre>
+ * header   magic, version, record capacity, record count, data end, n-gram config
+ * offsets  capacity x int64 record offsets
+ * records  file id, norm, size, language, file name, codes[size], counts[size]
+ * </pre>
+ *
+ * Codes and counts are raw little-endian ints, so a scan reads them straight
+ * from the mapping without decoding or copying to the heap. Records are only
+ * ever appended; the count in the header is written last, so a record torn by
+ * a process crash is simply not there on reopen. The mapping is never forced
+ * to disk, so after a power loss the order of page writes is not guaranteed
+ * and the database has to repair the store. Superseded records are tracked in
+ * an in-memory dead set rebuilt at open; it is not thread-safe, so callers
+ * only touch it under their lock.
+ */
+final class VectorSegment {
+
+    static final int MAGIC = 0x50435653;
+
+    static final int VERSION = 1;
+
+    static final int HEADER_SIZE = 64;
+
+    private static final int CAPACITY_AT = 8;
+    private static final int COUNT_AT = 12;
+    private static final int DATA_END_AT = 16;
+    private static final int CONFIG_AT = 24;
+    private static final int MAX_CONFIG_LENGTH = HEADER_SIZE - CONFIG_AT - 1;
+
+    /** file id, norm, size, language length, file name length */
+    private static final int RECORD_HEADER = 8 + 8 + 4 + 1 + 2;
+
+    private final Path path;
+
+    private final long sequence;
+
+    private final int generation;
+
+    private final MappedByteBuffer buffer;
+
+    private final int capacity;
+
+    private final String config;
+
+    private final BitSet dead = new BitSet();
+
+    private int count;
+
+    private long dataEnd;
+
+    private VectorSegment(Path path, long sequence, int generation, MappedByteBuffer buffer) {
+        this.path = path;
+        this.sequence = sequence;
+        this.generation = generation;
+        this.buffer = buffer;
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IllegalStateException("Not a version " + VERSION + " vector segment: " + path);
+        }
+        this.capacity = buffer.getInt(CAPACITY_AT);
+        this.count = buffer.getInt(COUNT_AT);
+        this.dataEnd = buffer.getLong(DATA_END_AT);
+        byte[] configBytes = new byte[buffer.get(CONFIG_AT)];
+        buffer.get(CONFIG_AT + 1, configBytes);
+        this.config = new String(configBytes, StandardCharsets.US_ASCII);
+    }
+
+    static VectorSegment create(Path path, long sequence, int generation, int capacity, long dataBytes,
+            String config) throws IOException {
+        byte[] configBytes = config.getBytes(StandardCharsets.US_ASCII);
+        if (configBytes.length > MAX_CONFIG_LENGTH) {
+            throw new IllegalArgumentException("N-gram config too long for a segment header: " + config);
+        }
+        long size = dataStart(capacity) + dataBytes;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Segment of " + size + " bytes exceeds a single mapping");
+        }
+
+        MappedByteBuffer buffer = map(path, size);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(CAPACITY_AT, capacity);
+        buffer.putInt(COUNT_AT, 0);
+        buffer.putLong(DATA_END_AT, dataStart(capacity));
+        buffer.put(CONFIG_AT, (byte) configBytes.length);
+        buffer.put(CONFIG_AT + 1, configBytes);
+        return new VectorSegment(path, sequence, generation, buffer);
+    }
+
+    static VectorSegment open(Path path, long sequence, int generation) throws IOException {
+        return new VectorSegment(path, sequence, generation, map(path, -1));
+    }
+
+    private static MappedByteBuffer map(Path path, long size) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            if (size >= 0) {
+                file.setLength(size);
+            }
+            // The mapping stays valid after the channel is closed
+            return file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, file.length());
+        }
+    }
+
+    private static long dataStart(int capacity) {
+        return HEADER_SIZE + (long) capacity * 8;
+    }
+
+    static int recordBytes(String fileName, String language, int size) {
+        int strings = language.getBytes(StandardCharsets.UTF_8).length + fileName.getBytes(StandardCharsets.UTF_8).length;
+        return align(RECORD_HEADER + strings) + size * 8;
+    }
+
+    private static int align(int n) {
+        return (n + 3) & ~3;
+    }
+
+    Path path() {
+        return path;
+    }
+
+    long sequence() {
+        return sequence;
+    }
+
+    int generation() {
+        return generation;
+    }
+
+    String config() {
+        return config;
+    }
+
+    int count() {
+        return count;
+    }
+
+    int liveCount() {
+        return count - dead.cardinality();
+    }
+
+    boolean hasRoom(int recordBytes) {
+        return count < capacity && dataEnd + recordBytes <= buffer.capacity();
+    }
+
+    /**
+     * Appends a record and publishes it by bumping the count.
+     *
+     * @return index of the new record
+     */
+    int append(long fileId, String fileName, String language, TrigramVector vector) {
+        byte[] languageBytes = language.getBytes(StandardCharsets.UTF_8);
+        byte[] nameBytes = fileName.getBytes(StandardCharsets.UTF_8);
+        int nameLength = Math.min(nameBytes.length, 0xFFFF);
+        int[] codes = vector.codes();
+        int[] counts = vector.counts();
+
+        int offset = (int) dataEnd;
+        buffer.putLong(offset, fileId);
+        buffer.putDouble(offset + 8, vector.norm());
+        buffer.putInt(offset + 16, codes.length);
+        buffer.put(offset + 20, (byte) languageBytes.length);
+        buffer.putShort(offset + 21, (short) nameLength);
+        buffer.put(offset + RECORD_HEADER, languageBytes);
+        buffer.put(offset + RECORD_HEADER + languageBytes.length, nameBytes, 0, nameLength);
+
+        int codesAt = codesAt(offset);
+        int countsAt = codesAt + codes.length * 4;
+        for (int i = 0; i < codes.length; i++) {
+            buffer.putInt(codesAt + i * 4, codes[i]);
+            buffer.putInt(countsAt + i * 4, counts[i]);
+        }
+
+        int index = count;
+        dataEnd = countsAt + codes.length * 4L;
+        buffer.putLong(HEADER_SIZE + index * 8, offset);
+        buffer.putLong(DATA_END_AT, dataEnd);
+        count = index + 1;
+        buffer.putInt(COUNT_AT, count);
+        return index;
+    }
+
+    /**
+     * Copies a record of another segment byte for byte, for compaction.
+     */
+    int copy(VectorSegment from, int fromIndex) {
+        int source = from.offset(fromIndex);
+        int length = from.recordLength(fromIndex);
+        int offset = (int) dataEnd;
+        buffer.put(offset, from.buffer, source, length);
+
+        int index = count;
+        dataEnd = offset + (long) length;
+        buffer.putLong(HEADER_SIZE + index * 8, offset);
+        buffer.putLong(DATA_END_AT, dataEnd);
+        count = index + 1;
+        buffer.putInt(COUNT_AT, count);
+        return index;
+    }
+
+    void markDead(int index) {
+        dead.set(index);
+    }
+
+    boolean isDead(int index) {
+        return dead.get(index);
+    }
+
+    /** Copy of the dead set, for reading outside the owner's lock */
+    BitSet deadSnapshot() {
+        return (BitSet) dead.clone();
+    }
+
+    int recordLength(int index) {
+        int offset = offset(index);
+        return codesAt(offset) + size(offset) * 8 - offset;
+    }
+
+    int offset(int index) {
+        return (int) buffer.getLong(HEADER_SIZE + index * 8);
+    }
+
+    long fileId(int offset) {
+        return buffer.getLong(offset);
+    }
+
+    double norm(int offset) {
+        return buffer.getDouble(offset + 8);
+    }
+
+    int size(int offset) {
+        return buffer.getInt(offset + 16);
+    }
+
+    boolean languageEquals(int offset, byte[] language) {
+        int length = buffer.get(offset + 20);
+        if (length != language.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(offset + RECORD_HEADER + i) != language[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    String language(int offset) {
+        byte[] bytes = new byte[buffer.get(offset + 20)];
+        buffer.get(offset + RECORD_HEADER, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    String fileName(int offset) {
+        byte[] bytes = new byte[buffer.getShort(offset + 21) & 0xFFFF];
+        buffer.get(offset + RECORD_HEADER + buffer.get(offset + 20), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Dot product of the record's vector with sorted query codes and counts,
+     * a merge-join read directly from the mapping.
+     */
+    long dot(int offset, int[] codes, int[] counts) {
+        int size = size(offset);
+        int codesAt = codesAt(offset);
+        int countsAt = codesAt + size * 4;
+        long dot = 0;
+        int i = 0;
+        int j = 0;
+        while (i < codes.length && j < size) {
+            int code = buffer.getInt(codesAt + j * 4);
+            if (codes[i] == code) {
+                dot += (long) counts[i] * buffer.getInt(countsAt + j * 4);
+                i++;
+                j++;
+            } else if (codes[i] < code) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return dot;
+    }
+
+    private int codesAt(int offset) {
+        int strings = buffer.get(offset + 20) + (buffer.getShort(offset + 21) & 0xFFFF);
+        return offset + align(RECORD_HEADER + strings);
+    }
+}
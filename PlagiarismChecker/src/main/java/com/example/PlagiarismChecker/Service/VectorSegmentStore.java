@@ -0,0 +1,481 @@
+package com.example.PlagiarismChecker.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Local append-only store of every trigram vector in memory-mapped
+ * {@link VectorSegment} files. Compare-all scans the mappings directly, so
+ * vectors are never decoded onto the heap and a restart maps the files instead
+ * of reloading them from the database.
+ *
+ * New vectors are appended to the active segment; a full segment is sealed
+ * and a new one started. Re-adding a file supersedes its older record, which
+ * is only marked dead. Once there are more than max-sealed sealed segments,
+ * a background task merges their live records into one segment. Files are
+ * named segment-{sequence}-{generation}.seg and replayed in that order at
+ * startup, the last record of an id winning, so a merge interrupted before
+ * its inputs were deleted only leaves duplicates behind.
+ *
+ * The database stays the source of truth: records carry no checksum, the
+ * store is dropped when the n-gram configuration changes, and re-indexing at
+ * startup appends whatever is missing.
+ */
+@Component
+public class VectorSegmentStore {
+
+	private static final Logger logger = LoggerFactory.getLogger(VectorSegmentStore.class);
+
+	private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d+)-(\\d+)\\.seg");
+
+	private static final Comparator<VectorSegment> REPLAY_ORDER = Comparator.comparingLong(VectorSegment::sequence)
+			.thenComparingInt(VectorSegment::generation);
+
+	private final boolean enabled;
+
+	private final Path directory;
+
+	private final int segmentRecords;
+
+	private final long segmentBytes;
+
+	private final int maxSealed;
+
+	private final NgramExtractor ngramExtractor;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/** Segments in replay order; the last one is active */
+	private final List<VectorSegment> segments = new ArrayList<>();
+
+	private final Map<Long, Location> locations = new HashMap<>();
+
+	private final AtomicBoolean compacting = new AtomicBoolean();
+
+	private final ExecutorService compactor = Executors.newSingleThreadExecutor(r -> {
+		Thread thread = new Thread(r, "segment-compactor");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private long nextSequence = 0;
+
+	public VectorSegmentStore(@Value("${plagiarism.segments.enabled:false}") boolean enabled,
+			@Value("${plagiarism.segments.dir:data/segments}") String directory,
+			@Value("${plagiarism.segments.records:65536}") int segmentRecords,
+			@Value("${plagiarism.segments.bytes:268435456}") long segmentBytes,
+			@Value("${plagiarism.segments.max-sealed:8}") int maxSealed,
+			NgramExtractor ngramExtractor) {
+		this.enabled = enabled;
+		this.directory = Paths.get(directory);
+		this.segmentRecords = segmentRecords;
+		this.segmentBytes = segmentBytes;
+		this.maxSealed = Math.max(2, maxSealed);
+		this.ngramExtractor = ngramExtractor;
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Maps the existing segment files. Segments written under another n-gram
+	 * configuration, or unreadable ones, discard the whole store.
+	 */
+	@PostConstruct
+	public void open() {
+		if (!enabled) {
+			return;
+		}
+
+		lock.writeLock().lock();
+		try {
+			Files.createDirectories(directory);
+			List<VectorSegment> found = new ArrayList<>();
+			try (Stream<Path> files = Files.list(directory)) {
+				for (Path path : (Iterable<Path>) files::iterator) {
+					Matcher name = SEGMENT_NAME.matcher(path.getFileName().toString());
+					if (name.matches()) {
+						found.add(VectorSegment.open(path, Long.parseLong(name.group(1)), Integer.parseInt(name.group(2))));
+					}
+				}
+			} catch (IllegalStateException e) {
+				logger.warn("Discarding vector segments: {}", e.getMessage());
+				deleteSegmentFiles();
+				return;
+			}
+
+			String config = ngramExtractor.config();
+			if (found.stream().anyMatch(segment -> !segment.config().equals(config))) {
+				logger.info("Vector segments were built for another n-gram configuration, discarding them");
+				discard(found);
+				return;
+			}
+
+			found.sort(REPLAY_ORDER);
+			for (VectorSegment segment : found) {
+				for (int index = 0; index < segment.count(); index++) {
+					supersede(locations.put(segment.fileId(segment.offset(index)), new Location(segment, index)));
+				}
+				nextSequence = Math.max(nextSequence, segment.sequence() + 1);
+			}
+			segments.addAll(found);
+
+			logger.info("Mapped {} vector segments holding {} files from {}", segments.size(), locations.size(),
+					directory.toAbsolutePath());
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot open vector segments in " + directory, e);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Appends a file's vector, superseding any older record of it. A record
+	 * with the same size and norm is taken to be current and left alone, so
+	 * re-indexing at startup only appends what the store is missing.
+	 */
+	public void add(Long fileId, String fileName, String language, TrigramVector vector) {
+		if (!enabled || fileId == null || vector == null) {
+			return;
+		}
+		String safeName = fileName != null ? fileName : "";
+		String safeLanguage = language != null ? language.toUpperCase() : "";
+
+		boolean compact;
+		lock.writeLock().lock();
+		try {
+			Location previous = locations.get(fileId);
+			if (previous != null) {
+				int offset = previous.segment().offset(previous.index());
+				if (previous.segment().size(offset) == vector.size()
+						&& previous.segment().norm(offset) == vector.norm()) {
+					return;
+				}
+			}
+
+			VectorSegment active = activeSegment(VectorSegment.recordBytes(safeName, safeLanguage, vector.size()));
+			int index = active.append(fileId, safeName, safeLanguage, vector);
+			supersede(locations.put(fileId, new Location(active, index)));
+			compact = segments.size() - 1 > maxSealed;
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot append to vector segments", e);
+		} finally {
+			lock.writeLock().unlock();
+		}
+
+		if (compact && compacting.compareAndSet(false, true)) {
+			compactor.execute(this::compact);
+		}
+	}
+
+	public void clear() {
+		if (!enabled) {
+			return;
+		}
+		lock.writeLock().lock();
+		try {
+			discard(new ArrayList<>(segments));
+			segments.clear();
+			locations.clear();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Exact cosine ranking over every live record, read from the mappings.
+	 * Records whose size/norm bound cannot reach the cut-off are skipped
+	 * before their codes are touched, and names are decoded only for the
+	 * records that are kept. As with the database scan, skipping a record
+	 * against the K-th best score makes the total a lower bound.
+	 *
+	 * @param excludeFileId file to leave out of the ranking (the target itself)
+	 * @param language      upper-case language filter, or null for all
+	 * @param minSimilarity minimum similarity as a percentage
+	 * @param limit         number of best matches to keep
+	 */
+	public TopMatches topMatches(TrigramVector target, Long excludeFileId, String language, double minSimilarity,
+			int limit) {
+		if (target == null || target.isEmpty() || limit <= 0) {
+			return new TopMatches(List.of(), 0);
+		}
+
+		long startTime = System.currentTimeMillis();
+		byte[] languageBytes = language != null ? language.getBytes(StandardCharsets.UTF_8) : null;
+		int[] codes = target.codes();
+		int[] counts = target.counts();
+
+		// Min-heap of (similarity, segment, offset) candidates; results are built once at the end
+		PriorityQueue<Hit> best = new PriorityQueue<>(Comparator.comparingDouble(Hit::similarity));
+		long total = 0;
+		long scanned = 0;
+		long pruned = 0;
+		long cutOff = 0;
+
+		lock.readLock().lock();
+		try {
+			for (VectorSegment segment : segments) {
+				int count = segment.count();
+				for (int index = 0; index < count; index++) {
+					if (segment.isDead(index)) {
+						continue;
+					}
+					int offset = segment.offset(index);
+					if ((excludeFileId != null && segment.fileId(offset) == excludeFileId)
+							|| (languageBytes != null && !segment.languageEquals(offset, languageBytes))) {
+						continue;
+					}
+					scanned++;
+
+					double norm = segment.norm(offset);
+					double bound = CustomCosineSimilarity.upperBound(target.size(), target.norm(), segment.size(offset),
+							norm) * 100;
+					if (bound < minSimilarity) {
+						pruned++;
+						continue;
+					}
+					if (best.size() >= limit && bound <= best.peek().similarity()) {
+						pruned++;
+						cutOff++;
+						continue;
+					}
+
+					long dot = segment.dot(offset, codes, counts);
+					double similarity = dot == 0 ? 0.0 : dot / (target.norm() * norm) * 100;
+					if (similarity < minSimilarity) {
+						continue;
+					}
+					total++;
+					if (best.size() < limit) {
+						best.add(new Hit(similarity, segment, offset));
+					} else if (similarity > best.peek().similarity()) {
+						best.poll();
+						best.add(new Hit(similarity, segment, offset));
+					}
+				}
+			}
+
+			List<SimilarityResult> ranked = new ArrayList<>(best.size());
+			for (Hit hit : best) {
+				ranked.add(new SimilarityResult(hit.segment().fileId(hit.offset()), hit.segment().fileName(hit.offset()),
+						hit.segment().language(hit.offset()), hit.similarity()));
+			}
+			ranked.sort(Comparator.comparingDouble(SimilarityResult::getSimilarity).reversed());
+
+			logger.info("Scanned {} mapped vectors in {} segments in {}ms, {} pruned by norm bound, {} qualified",
+					scanned, segments.size(), System.currentTimeMillis() - startTime, pruned, total);
+			return new TopMatches(ranked, total, cutOff == 0);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Merges the live records of all sealed segments into one. Sealed segments
+	 * are never appended to, but their dead sets still change under the write
+	 * lock, so they are snapshotted under the read lock and the copy then runs
+	 * without it; records that are superseded meanwhile are marked dead in the
+	 * merged segment when it is swapped in.
+	 */
+	private void compact() {
+		try {
+			List<VectorSegment> sealed;
+			List<BitSet> deadSets = new ArrayList<>();
+			lock.readLock().lock();
+			try {
+				sealed = new ArrayList<>(segments.subList(0, Math.max(0, segments.size() - 1)));
+				for (VectorSegment segment : sealed) {
+					deadSets.add(segment.deadSnapshot());
+				}
+			} finally {
+				lock.readLock().unlock();
+			}
+			if (sealed.size() < 2) {
+				return;
+			}
+
+			// Oldest first, as many as fit in a single mapping
+			int live = 0;
+			long bytes = 0;
+			int merging = 0;
+			for (int s = 0; s < sealed.size(); s++) {
+				VectorSegment segment = sealed.get(s);
+				BitSet dead = deadSets.get(s);
+				long segmentBytes = 0;
+				int segmentLive = 0;
+				for (int index = 0; index < segment.count(); index++) {
+					if (!dead.get(index)) {
+						segmentBytes += segment.recordLength(index);
+						segmentLive++;
+					}
+				}
+				long offsets = 8L * (live + segmentLive);
+				if (merging > 0 && VectorSegment.HEADER_SIZE + offsets + bytes + segmentBytes > Integer.MAX_VALUE) {
+					break;
+				}
+				live += segmentLive;
+				bytes += segmentBytes;
+				merging++;
+			}
+			sealed = sealed.subList(0, merging);
+			if (merging < 2) {
+				return;
+			}
+
+			// Takes the newest input's sequence, so it still replays before the active segment
+			VectorSegment newest = sealed.get(sealed.size() - 1);
+			VectorSegment merged = VectorSegment.create(
+					segmentPath(newest.sequence(), newest.generation() + 1), newest.sequence(),
+					newest.generation() + 1, Math.max(1, live), bytes, ngramExtractor.config());
+			List<Location> sources = new ArrayList<>(live);
+			for (int s = 0; s < sealed.size(); s++) {
+				VectorSegment segment = sealed.get(s);
+				BitSet dead = deadSets.get(s);
+				for (int index = 0; index < segment.count(); index++) {
+					if (!dead.get(index)) {
+						merged.copy(segment, index);
+						sources.add(new Location(segment, index));
+					}
+				}
+			}
+
+			int mergedLive;
+			lock.writeLock().lock();
+			try {
+				if (!segments.containsAll(sealed)) {
+					// Cleared while merging
+					discard(List.of(merged));
+					return;
+				}
+				for (int index = 0; index < sources.size(); index++) {
+					Location source = sources.get(index);
+					long fileId = merged.fileId(merged.offset(index));
+					if (source.equals(locations.get(fileId))) {
+						locations.put(fileId, new Location(merged, index));
+					} else {
+						merged.markDead(index);
+					}
+				}
+				segments.removeAll(sealed);
+				segments.add(0, merged);
+				mergedLive = merged.liveCount();
+			} finally {
+				lock.writeLock().unlock();
+			}
+			discard(sealed);
+
+			logger.info("Compacted {} vector segments into one with {} live files", sealed.size(), mergedLive);
+		} catch (IOException | RuntimeException e) {
+			logger.error("Vector segment compaction failed: {}", e.getMessage(), e);
+		} finally {
+			compacting.set(false);
+		}
+	}
+
+	/**
+	 * Runs a compaction on the calling thread unless one is already running.
+	 */
+	void compactNow() {
+		if (compacting.compareAndSet(false, true)) {
+			compact();
+		}
+	}
+
+	/** Number of segment files, the active one included */
+	int segmentCount() {
+		lock.readLock().lock();
+		try {
+			return segments.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private VectorSegment activeSegment(int recordBytes) throws IOException {
+		if (!segments.isEmpty()) {
+			VectorSegment active = segments.get(segments.size() - 1);
+			if (active.hasRoom(recordBytes)) {
+				return active;
+			}
+		}
+		// An oversized record gets a segment of its own
+		long sequence = nextSequence++;
+		VectorSegment created = VectorSegment.create(segmentPath(sequence, 0), sequence, 0, segmentRecords,
+				Math.max(segmentBytes, recordBytes), ngramExtractor.config());
+		segments.add(created);
+		return created;
+	}
+
+	private Path segmentPath(long sequence, int generation) {
+		return directory.resolve("segment-" + sequence + "-" + generation + ".seg");
+	}
+
+	private void deleteSegmentFiles() throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			for (Path path : (Iterable<Path>) files::iterator) {
+				if (SEGMENT_NAME.matcher(path.getFileName().toString()).matches()) {
+					Files.deleteIfExists(path);
+				}
+			}
+		}
+	}
+
+	private static void supersede(Location previous) {
+		if (previous != null) {
+			previous.segment().markDead(previous.index());
+		}
+	}
+
+	/**
+	 * Deletes segment files. The mappings themselves are released when the
+	 * buffers are collected; on Linux the data stays readable until then.
+	 */
+	private void discard(List<VectorSegment> stale) {
+		for (VectorSegment segment : stale) {
+			try {
+				Files.deleteIfExists(segment.path());
+			} catch (IOException e) {
+				logger.warn("Could not delete vector segment {}: {}", segment.path(), e.getMessage());
+			}
+		}
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		compactor.shutdown();
+	}
+
+	private record Location(VectorSegment segment, int index) {
+	}
+
+	private record Hit(double similarity, VectorSegment segment, int offset) {
+	}
+}
@@ -0,0 +1,270 @@
+package com.example.PlagiarismChecker.Service;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * MOSS-style winnowing over the normalized token stream. Every run of K_GRAM
+ * consecutive tokens gets a rolling hash, and in each window of WINDOW
+ * consecutive k-gram hashes the minimum (rightmost on ties) is kept together
+ * with the token position of its k-gram.
+ *
+ * Any shared run of at least WINDOW + K_GRAM - 1 tokens is guaranteed to
+ * produce a common fingerprint, while only about 2 / (WINDOW + 1) of the
+ * k-grams are stored.
+ */
+public final class WinnowingFingerprints {
+
+    public static final int K_GRAM = 5;
+
+    public static final int WINDOW = 4;
+
+    public static final WinnowingFingerprints EMPTY = new WinnowingFingerprints(new int[0], new int[0]);
+
+    private static final long BASE = 0x100000001B3L;
+
+    private final int[] hashes;
+
+    private final int[] positions;
+
+    private WinnowingFingerprints(int[] hashes, int[] positions) {
+        this.hashes = hashes;
+        this.positions = positions;
+    }
+
+    /**
+     * @param normalizedContent space-separated token stream as produced by
+     *                          normalizeContent
+     */
+    public static WinnowingFingerprints compute(String normalizedContent) {
+        long[] tokens = tokenHashes(normalizedContent);
+        if (tokens.length == 0) {
+            return EMPTY;
+        }
+
+        // Files shorter than one k-gram still get a single fingerprint so exact copies match
+        int kGram = Math.min(K_GRAM, tokens.length);
+        // BASE^(kGram - 1) drops the outgoing token from the rolling hash
+        long pow = power(kGram - 1);
+        int kGramCount = tokens.length - kGram + 1;
+        int[] kGramHashes = new int[kGramCount];
+
+        long rolling = 0;
+        for (int i = 0; i < kGram; i++) {
+            rolling = rolling * BASE + tokens[i];
+        }
+        kGramHashes[0] = finish(rolling);
+        for (int i = 1; i < kGramCount; i++) {
+            rolling = (rolling - tokens[i - 1] * pow) * BASE + tokens[i + kGram - 1];
+            kGramHashes[i] = finish(rolling);
+        }
+
+        int window = Math.min(WINDOW, kGramCount);
+        int[] selectedHashes = new int[kGramCount];
+        int[] selectedPositions = new int[kGramCount];
+        int selected = 0;
+        int lastPosition = -1;
+        for (int start = 0; start + window <= kGramCount; start++) {
+            int minPosition = start;
+            for (int i = start + 1; i < start + window; i++) {
+                if (kGramHashes[i] <= kGramHashes[minPosition]) {
+                    minPosition = i;
+                }
+            }
+            if (minPosition != lastPosition) {
+                selectedHashes[selected] = kGramHashes[minPosition];
+                selectedPositions[selected] = minPosition;
+                selected++;
+                lastPosition = minPosition;
+            }
+        }
+
+        return new WinnowingFingerprints(Arrays.copyOf(selectedHashes, selected),
+                Arrays.copyOf(selectedPositions, selected));
+    }
+
+    public int size() {
+        return hashes.length;
+    }
+
+    public boolean isEmpty() {
+        return hashes.length == 0;
+    }
+
+    /** Fingerprint hashes in position order (may repeat) */
+    public int[] hashes() {
+        return hashes;
+    }
+
+    /** Token position of the k-gram behind each fingerprint, ascending */
+    public int[] positions() {
+        return positions;
+    }
+
+    /** Distinct fingerprint hashes, sorted */
+    public int[] distinctHashes() {
+        int[] sorted = hashes.clone();
+        Arrays.sort(sorted);
+        int n = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[n++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, n);
+    }
+
+    /**
+     * Localizes shared code: fingerprints present in both files are paired by
+     * position and chained into regions when consecutive pairs advance together
+     * in both files (allowing a shift of up to WINDOW tokens for small edits).
+     *
+     * @return token ranges {start1, end1, start2, end2}, end exclusive, longest
+     *         first
+     */
+    public List<int[]> matchRanges(WinnowingFingerprints other) {
+        Map<Integer, List<Integer>> otherPositions = new HashMap<>();
+        for (int i = 0; i < other.hashes.length; i++) {
+            otherPositions.computeIfAbsent(other.hashes[i], h -> new ArrayList<>()).add(other.positions[i]);
+        }
+
+        int maxGap = WINDOW + K_GRAM;
+        List<int[]> open = new ArrayList<>();
+        List<int[]> regions = new ArrayList<>();
+        for (int i = 0; i < hashes.length; i++) {
+            List<Integer> matches = otherPositions.get(hashes[i]);
+            if (matches == null) {
+                continue;
+            }
+            int position1 = positions[i];
+            open.removeIf(region -> position1 - (region[1] - K_GRAM) > maxGap);
+
+            for (int position2 : matches) {
+                int[] extended = null;
+                for (int[] region : open) {
+                    int step1 = position1 - (region[1] - K_GRAM);
+                    int step2 = position2 - (region[3] - K_GRAM);
+                    if (step1 > 0 && step2 > 0 && step2 <= maxGap && Math.abs(step1 - step2) <= WINDOW) {
+                        extended = region;
+                        break;
+                    }
+                }
+                if (extended != null) {
+                    extended[1] = position1 + K_GRAM;
+                    extended[3] = position2 + K_GRAM;
+                } else {
+                    int[] region = { position1, position1 + K_GRAM, position2, position2 + K_GRAM };
+                    open.add(region);
+                    regions.add(region);
+                }
+            }
+        }
+
+        regions.sort((a, b) -> Integer.compare(b[1] - b[0], a[1] - a[0]));
+        return regions;
+    }
+
+    /**
+     * Encodes as a varint count followed by (hash as a big-endian int,
+     * varint position delta) per fingerprint.
+     */
+    public byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(5 + hashes.length * 9);
+        putVarint(buffer, hashes.length);
+        int previous = 0;
+        for (int i = 0; i < hashes.length; i++) {
+            buffer.putInt(hashes[i]);
+            putVarint(buffer, positions[i] - previous);
+            previous = positions[i];
+        }
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    /**
+     * @return the decoded fingerprints, or null if the bytes are missing or
+     *         malformed
+     */
+    public static WinnowingFingerprints fromBytes(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            int count = getVarint(buffer);
+            if (count < 0 || count > bytes.length / 5) {
+                return null;
+            }
+            int[] hashes = new int[count];
+            int[] positions = new int[count];
+            int position = 0;
+            for (int i = 0; i < count; i++) {
+                hashes[i] = buffer.getInt();
+                position += getVarint(buffer);
+                positions[i] = position;
+            }
+            return new WinnowingFingerprints(hashes, positions);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Splits on single spaces (normalizeContent collapses whitespace) and hashes
+     * each token; String.hashCode is stable across JVMs, so stored fingerprints
+     * stay comparable.
+     */
+    static long[] tokenHashes(String normalizedContent) {
+        if (normalizedContent == null || normalizedContent.isBlank()) {
+            return new long[0];
+        }
+        String[] tokens = normalizedContent.trim().split(" +");
+        long[] result = new long[tokens.length];
+        for (int i = 0; i < tokens.length; i++) {
+            result[i] = mix(tokens[i].hashCode());
+        }
+        return result;
+    }
+
+    private static long power(int exponent) {
+        long pow = 1;
+        for (int i = 0; i < exponent; i++) {
+            pow *= BASE;
+        }
+        return pow;
+    }
+
+    private static int finish(long rolling) {
+        return (int) (mix(rolling) >>> 32);
+    }
+
+    /** Murmur3 finalizer */
+    private static long mix(long h) {
+        h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+        h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+
+    private static void putVarint(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static int getVarint(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+}
@@ -3,6 +3,7 @@ package com.example.PlagiarismChecker.controller;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Serializable;
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -11,7 +12,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -21,14 +25,26 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import com.example.PlagiarismChecker.Service.SimilarityResult;
+import com.example.PlagiarismChecker.DTO.CodeFileListing;
+import com.example.PlagiarismChecker.DTO.CodeSearchPage;
 import com.example.PlagiarismChecker.DTO.CodeFileSummary;
+import com.example.PlagiarismChecker.DTO.CursorPage;
 import com.example.PlagiarismChecker.Repository.CodeFileRepository;
 import com.example.PlagiarismChecker.Service.CodeFileService;
+import com.example.PlagiarismChecker.Service.CodeSearchService;
+import com.example.PlagiarismChecker.Service.CompareMode;
+import com.example.PlagiarismChecker.Service.CorpusExportService;
+import com.example.PlagiarismChecker.Service.FileListingService;
+import com.example.PlagiarismChecker.Service.MatchRegion;
+import com.example.PlagiarismChecker.Service.SimilarityEngine;
 import com.example.PlagiarismChecker.Service.MessageProducer;
+import com.example.PlagiarismChecker.Service.SearchMode;
 import com.example.PlagiarismChecker.model.CodeFile;
 
 import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.PositiveOrZero;
 
 @RestController
@@ -44,6 +60,15 @@ public class CodeFileController implements Serializable {
 	@Autowired
 	private MessageProducer producer;
 
+	@Autowired
+	private FileListingService fileListingService;
+
+	@Autowired
+	private CorpusExportService corpusExportService;
+
+	@Autowired
+	private CodeSearchService codeSearchService;
+
 	@PostMapping("/upload")
 	public ResponseEntity<?> uploadFile(@RequestParam("file") MultipartFile file, @RequestParam String language) {
 		try (InputStream inputStream = file.getInputStream()) {
@@ -59,9 +84,10 @@ public class CodeFileController implements Serializable {
 	}
 
 	@GetMapping("/compare")
-	public ResponseEntity<?> compareFiles(@RequestParam Long fileId1, @RequestParam Long fileId2) {
+	public ResponseEntity<?> compareFiles(@RequestParam Long fileId1, @RequestParam Long fileId2,
+			@RequestParam(defaultValue = "SPARSE") SimilarityEngine engine) {
 		try {
-			double similarity = codeFileService.calculateSimilarity(fileId1, fileId2);
+			double similarity = codeFileService.calculateSimilarity(fileId1, fileId2, engine);
 			return ResponseEntity.ok(similarity);
 		} catch (IllegalArgumentException e) {
 			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid comparison request: " + e.getMessage());
@@ -71,15 +97,31 @@ public class CodeFileController implements Serializable {
 		}
 	}
 
+	@GetMapping("/matches")
+	public ResponseEntity<?> findMatches(@RequestParam Long fileId1, @RequestParam Long fileId2) {
+		try {
+			List<MatchRegion> regions = codeFileService.findMatches(fileId1, fileId2);
+			return ResponseEntity.ok(regions);
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid match request: " + e.getMessage());
+		}
+	}
+
 	@GetMapping("/compare-all/{fileId}")
-	public ResponseEntity<Page<SimilarityResult>> compareAgainstAll(@PathVariable Long fileId,
+	public ResponseEntity<?> compareAgainstAll(@PathVariable Long fileId,
 			@RequestParam(defaultValue = "0") int page, @RequestParam(defaultValue = "10") int size,
 			@RequestParam(required = false) String languageFilter,
-			@RequestParam(required = false) @PositiveOrZero Double minSimilarity) {
+			@RequestParam(required = false) @PositiveOrZero Double minSimilarity,
+			@RequestParam(defaultValue = "INDEX") CompareMode mode,
+			@RequestParam(defaultValue = "SPARSE") SimilarityEngine engine) {
 		Pageable pageable = PageRequest.of(page, size);
-		Page<SimilarityResult> results = codeFileService.compareAgainstAll(fileId, pageable, languageFilter,
-				minSimilarity);
-		return ResponseEntity.ok(results);
+		try {
+			Slice<SimilarityResult> results = codeFileService.compareAgainstAll(fileId, pageable, languageFilter,
+					minSimilarity, mode, engine);
+			return ResponseEntity.ok(results);
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid comparison request: " + e.getMessage());
+		}
 	}
 
 	@GetMapping("/files")
@@ -87,6 +129,58 @@ public class CodeFileController implements Serializable {
 		return ResponseEntity.ok(codeFileRepository.findAllBy(pageable));
 	}
 
+	/**
+	 * Keyset-paginated listing: pass the returned nextToken as token to get
+	 * the following page. Deep pages cost the same as the first.
+	 */
+	@GetMapping("/files/cursor")
+	public ResponseEntity<?> getFilesPage(@RequestParam(required = false) String language,
+			@RequestParam(required = false) String token, @RequestParam(defaultValue = "50") int size,
+			@RequestParam(defaultValue = "false") boolean withTotal) {
+		try {
+			CursorPage<CodeFileListing> page = fileListingService.page(language, token, size, withTotal);
+			return ResponseEntity.ok(page);
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid page request: " + e.getMessage());
+		}
+	}
+
+
+	/**
+	 * Substring or token search over normalized content. Pass nextAfterId as
+	 * afterId for the next page.
+	 */
+	@GetMapping("/search")
+	public ResponseEntity<?> searchCode(@RequestParam String q,
+			@RequestParam(defaultValue = "SUBSTRING") SearchMode mode,
+			@RequestParam(required = false) String language,
+			@RequestParam(defaultValue = "true") boolean normalize,
+			@RequestParam(required = false) Long afterId, @RequestParam(defaultValue = "20") int size,
+			@RequestParam(required = false) @Positive Long budgetMs) {
+		try {
+			String normalizedLanguage = language != null && !language.isBlank() ? language.toUpperCase() : null;
+			CodeSearchPage page = codeSearchService.search(q, mode, normalizedLanguage, normalize, afterId, size,
+					budgetMs);
+			return ResponseEntity.ok(page);
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid search request: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Streams the whole corpus, optionally only one language and files
+	 * created since a point in time, for offline analysis.
+	 */
+	@GetMapping("/export")
+	public ResponseEntity<StreamingResponseBody> exportCorpus(@RequestParam(required = false) String language,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+			@RequestParam(defaultValue = "NDJSON") CorpusExportService.Format format) {
+		String normalizedLanguage = language != null && !language.isBlank() ? language.toUpperCase() : null;
+		StreamingResponseBody body = out -> corpusExportService.export(normalizedLanguage, since, format, out);
+		MediaType mediaType = format == CorpusExportService.Format.BINARY ? MediaType.APPLICATION_OCTET_STREAM
+				: MediaType.parseMediaType("application/x-ndjson");
+		return ResponseEntity.ok().contentType(mediaType).body(body);
+	}
 
 	@PostMapping("/upload/batch")
 	public ResponseEntity<?> uploadBatchFilesAsync(@RequestParam("files") List<MultipartFile> files,
@@ -0,0 +1,69 @@
+package com.example.PlagiarismChecker.controller;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.PlagiarismChecker.Service.AllPairsJobService;
+
+@RestController
+@RequestMapping("/api/similarity-jobs")
+public class SimilarityJobController {
+
+	@Autowired
+	private AllPairsJobService allPairsJobService;
+
+	@PostMapping
+	public ResponseEntity<?> startJob(@RequestParam(required = false) String language,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdFrom,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdTo,
+			@RequestParam(defaultValue = "80") double threshold) {
+		try {
+			String jobId = allPairsJobService.startJob(language, createdFrom, createdTo, threshold);
+			return ResponseEntity.ok(Map.of("jobId", jobId, "statusEndpoint", "/api/similarity-jobs/" + jobId));
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+		}
+	}
+
+	@GetMapping("/{jobId}")
+	public ResponseEntity<?> getStatus(@PathVariable String jobId) {
+		AllPairsJobService.JobStatus status = allPairsJobService.getStatus(jobId);
+		if (status == null) {
+			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Job not found: " + jobId));
+		}
+		return ResponseEntity.ok(status);
+	}
+
+	@PostMapping("/{jobId}/resume")
+	public ResponseEntity<?> resumeJob(@PathVariable String jobId) {
+		try {
+			allPairsJobService.resumeJob(jobId);
+			return ResponseEntity.ok(Map.of("jobId", jobId, "message", "Job resumed"));
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+		} catch (IllegalStateException e) {
+			return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+		}
+	}
+
+	@GetMapping("/{jobId}/edges")
+	public ResponseEntity<?> getEdges(@PathVariable String jobId, @RequestParam(defaultValue = "0") int page,
+			@RequestParam(defaultValue = "100") int size) {
+		try {
+			return ResponseEntity.ok(allPairsJobService.getEdges(jobId, page, size));
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+		}
+	}
+}
@@ -3,7 +3,11 @@ package com.example.PlagiarismChecker.model;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.annotations.Mutability;
 import org.hibernate.type.SqlTypes;
+import org.hibernate.type.descriptor.java.Immutability;
+
+import com.example.PlagiarismChecker.Service.TrigramVector;
 
 import java.io.Serializable;
 import java.time.LocalDateTime;
@@ -34,9 +38,21 @@ public class CodeFile implements Serializable {
     @Column(nullable = false, length = 500)
     private String fileName;
 
-    @NotBlank(message = "Content cannot be blank")
-    @Column(columnDefinition = "TEXT", nullable = false)
-    private String content;
+    /**
+     * Normalized content as codec byte + length + deflated UTF-8
+     * Only wrapped on load, inflated the first time getContent() is called
+     */
+    @Convert(converter = CompressedTextConverter.class)
+    @Mutability(Immutability.class)
+    @Column(name = "content_deflated", columnDefinition = "BYTEA")
+    private CompressedText content;
+
+    /**
+     * Legacy uncompressed content
+     * Only read for rows written before content_deflated; cleared once converted
+     */
+    @Column(name = "content", columnDefinition = "TEXT")
+    private String legacyContent;
 
     @NotBlank(message = "Language cannot be blank")
     @Column(nullable = false, length = 50)
@@ -46,13 +62,68 @@ public class CodeFile implements Serializable {
     private LocalDateTime createdAt;
 
     /**
-     * Trigram vector stored as JSONB for efficient storage
-     * Initially NULL, populated by async job after upload
+     * Legacy trigram vector stored as JSONB
+     * Only read for rows written before trigram_codes; cleared once converted
      */
     @JdbcTypeCode(SqlTypes.JSON)
     @Column(name = "trigram_vector", columnDefinition = "JSONB")
     private Map<String, Integer> trigram_vector;
 
+    /**
+     * Trigram vector as delta + varint encoded codes and counts
+     * Decoded straight into sorted arrays on load, no JSON parsing
+     */
+    @Convert(converter = TrigramVectorConverter.class)
+    @Mutability(Immutability.class)
+    @Column(name = "trigram_codes", columnDefinition = "BYTEA")
+    private TrigramVector trigramCodes;
+
+    /**
+     * Distinct n-gram codes of the vector, sorted
+     * GIN-indexed, lets Postgres find candidates sharing codes with a target
+     */
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(name = "trigram_set", columnDefinition = "INTEGER[]")
+    private int[] trigramSet;
+
+    /**
+     * L2 norm and distinct trigram count of the vector
+     * Derived in the vector setters so they can never drift from the vector
+     */
+    @Column(name = "trigram_norm")
+    private Double trigramNorm;
+
+    @Column(name = "trigram_count")
+    private Integer trigramCount;
+
+    /**
+     * N-gram configuration that produced trigram_vector, e.g. CHAR:3 or WORD:2
+     * Vectors from another configuration are regenerated, never compared
+     */
+    @Column(name = "ngram_config", nullable = false, length = 16)
+    private String ngramConfig = "CHAR:3";
+
+    /**
+     * Normalization that produced content, LEXICAL or AST
+     * Files are only compared with files normalized the same way
+     */
+    @Column(name = "normalization", nullable = false, length = 16)
+    private String normalization = "LEXICAL";
+
+    /**
+     * MinHash signature of the trigram set (128 big-endian ints)
+     * Written together with trigram_vector, feeds the LSH candidate index
+     */
+    @Column(name = "minhash_signature", columnDefinition = "BYTEA")
+    private byte[] minhashSignature;
+
+    /**
+     * Winnowing fingerprints of the normalized token stream
+     * Varint-encoded (hash, position) list, feeds the fingerprint index
+     */
+    @Column(name = "fingerprints", columnDefinition = "BYTEA")
+    private byte[] fingerprints;
+
     /**
      * Content hash for duplicate detection
      * Not unique to allow re-uploads if needed
@@ -88,12 +159,37 @@ public class CodeFile implements Serializable {
         this.fileName = fileName;
     }
 
+    @NotBlank(message = "Content cannot be blank")
     public String getContent() {
-        return content;
+        return content != null ? content.text() : legacyContent;
     }
 
+    /**
+     * Stores the content compressed and drops any legacy uncompressed copy.
+     */
     public void setContent(String content) {
-        this.content = content;
+        this.content = content != null ? CompressedText.of(content) : null;
+        this.legacyContent = null;
+    }
+
+    /**
+     * Stored bytes of the content column, for raw JDBC writes.
+     */
+    public byte[] getCompressedContent() {
+        return content != null ? content.bytes() : null;
+    }
+
+    /**
+     * Moves legacy uncompressed content into the compressed column.
+     *
+     * @return true if the entity changed and needs saving
+     */
+    public boolean compressLegacyContent() {
+        if (content != null || legacyContent == null) {
+            return false;
+        }
+        setContent(legacyContent);
+        return true;
     }
 
     public String getLanguage() {
@@ -118,6 +214,77 @@ public class CodeFile implements Serializable {
 
     public void Settrigram_vector(Map<String, Integer> trigram_vector) {
         this.trigram_vector = trigram_vector;
+
+        if (trigram_vector == null) {
+            this.trigramNorm = null;
+            this.trigramCount = null;
+            return;
+        }
+        long sumOfSquares = 0;
+        for (Integer count : trigram_vector.values()) {
+            sumOfSquares += (long) count * count;
+        }
+        this.trigramNorm = Math.sqrt(sumOfSquares);
+        this.trigramCount = trigram_vector.size();
+    }
+
+    public TrigramVector getTrigramCodes() {
+        return trigramCodes;
+    }
+
+    /**
+     * Stores the vector in binary form and drops any legacy JSONB copy.
+     */
+    public void setTrigramCodes(TrigramVector trigramCodes) {
+        this.trigramCodes = trigramCodes;
+        this.trigram_vector = null;
+        this.trigramSet = trigramCodes != null ? trigramCodes.codes() : null;
+        this.trigramNorm = trigramCodes != null ? trigramCodes.norm() : null;
+        this.trigramCount = trigramCodes != null ? trigramCodes.size() : null;
+    }
+
+    public int[] getTrigramSet() {
+        return trigramSet;
+    }
+
+    public Double getTrigramNorm() {
+        return trigramNorm;
+    }
+
+    public Integer getTrigramCount() {
+        return trigramCount;
+    }
+
+    public String getNgramConfig() {
+        return ngramConfig;
+    }
+
+    public void setNgramConfig(String ngramConfig) {
+        this.ngramConfig = ngramConfig;
+    }
+
+    public String getNormalization() {
+        return normalization;
+    }
+
+    public void setNormalization(String normalization) {
+        this.normalization = normalization;
+    }
+
+    public byte[] getMinhashSignature() {
+        return minhashSignature;
+    }
+
+    public void setMinhashSignature(byte[] minhashSignature) {
+        this.minhashSignature = minhashSignature;
+    }
+
+    public byte[] getFingerprints() {
+        return fingerprints;
+    }
+
+    public void setFingerprints(byte[] fingerprints) {
+        this.fingerprints = fingerprints;
     }
 
     public String getContentHash() {
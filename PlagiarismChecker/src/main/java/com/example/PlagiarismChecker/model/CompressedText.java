@@ -0,0 +1,146 @@
+package com.example.PlagiarismChecker.model;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Text held in its stored, compressed form and only inflated when read.
+ *
+ * Layout: one codec byte, the UTF-8 length as a varint, then the payload.
+ * Codec 1 is a raw Deflate stream; codec 0 stores the UTF-8 bytes as they are,
+ * for text too short to gain from compression. New codecs get new ids, so
+ * existing rows stay readable.
+ */
+public final class CompressedText implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private static final byte STORED = 0;
+    private static final byte DEFLATE = 1;
+
+    private final byte[] bytes;
+
+    private transient String text;
+
+    private CompressedText(byte[] bytes, String text) {
+        this.bytes = bytes;
+        this.text = text;
+    }
+
+    public static CompressedText of(String text) {
+        byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+        byte[] header = header(utf8.length);
+
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            deflater.setInput(utf8);
+            deflater.finish();
+            // Anything not smaller than the input is stored instead
+            byte[] out = Arrays.copyOf(header, header.length + utf8.length);
+            int length = header.length;
+            while (!deflater.finished() && length < out.length) {
+                length += deflater.deflate(out, length, out.length - length);
+            }
+            if (deflater.finished() && length < out.length) {
+                out[0] = DEFLATE;
+                return new CompressedText(Arrays.copyOf(out, length), text);
+            }
+        } finally {
+            deflater.end();
+        }
+
+        byte[] stored = Arrays.copyOf(header, header.length + utf8.length);
+        System.arraycopy(utf8, 0, stored, header.length, utf8.length);
+        stored[0] = STORED;
+        return new CompressedText(stored, text);
+    }
+
+    /**
+     * Wraps stored bytes without inflating them.
+     */
+    public static CompressedText fromBytes(byte[] bytes) {
+        return bytes != null && bytes.length > 0 ? new CompressedText(bytes, null) : null;
+    }
+
+    public byte[] bytes() {
+        return bytes;
+    }
+
+    /**
+     * The text, inflated on first call.
+     */
+    public String text() {
+        String cached = text;
+        if (cached == null) {
+            cached = decode();
+            text = cached;
+        }
+        return cached;
+    }
+
+    private String decode() {
+        int length = 0;
+        int shift = 0;
+        int pos = 1;
+        byte b;
+        do {
+            b = bytes[pos++];
+            length |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+
+        if (bytes[0] == STORED) {
+            return new String(bytes, pos, length, StandardCharsets.UTF_8);
+        }
+        if (bytes[0] != DEFLATE) {
+            throw new IllegalStateException("Unknown content codec " + bytes[0]);
+        }
+
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(bytes, pos, bytes.length - pos);
+            byte[] utf8 = new byte[length];
+            int read = 0;
+            while (read < length && !inflater.finished()) {
+                int n = inflater.inflate(utf8, read, length - read);
+                if (n == 0 && inflater.needsInput()) {
+                    break;
+                }
+                read += n;
+            }
+            if (read != length) {
+                throw new IllegalStateException("Truncated compressed content: " + read + " of " + length + " bytes");
+            }
+            return new String(utf8, StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt compressed content", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /** Codec placeholder byte followed by the varint length */
+    private static byte[] header(int length) {
+        byte[] header = new byte[6];
+        int pos = 1;
+        while ((length & ~0x7F) != 0) {
+            header[pos++] = (byte) ((length & 0x7F) | 0x80);
+            length >>>= 7;
+        }
+        header[pos++] = (byte) length;
+        return Arrays.copyOf(header, pos);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof CompressedText other && Arrays.equals(bytes, other.bytes));
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(bytes);
+    }
+}
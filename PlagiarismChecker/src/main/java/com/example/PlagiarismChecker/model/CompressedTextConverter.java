@@ -0,0 +1,22 @@
+package com.example.PlagiarismChecker.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Maps the content_deflated BYTEA column to {@link CompressedText}. Loading
+ * only wraps the bytes; inflation waits until the content is read.
+ */
+@Converter
+public class CompressedTextConverter implements AttributeConverter<CompressedText, byte[]> {
+
+    @Override
+    public byte[] convertToDatabaseColumn(CompressedText text) {
+        return text != null ? text.bytes() : null;
+    }
+
+    @Override
+    public CompressedText convertToEntityAttribute(byte[] bytes) {
+        return CompressedText.fromBytes(bytes);
+    }
+}
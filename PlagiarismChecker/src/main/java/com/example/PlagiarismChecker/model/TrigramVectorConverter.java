@@ -0,0 +1,24 @@
+package com.example.PlagiarismChecker.model;
+
+import com.example.PlagiarismChecker.Service.TrigramVector;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Maps the trigram_codes BYTEA column to a {@link TrigramVector} using its
+ * delta + varint encoding; malformed bytes load as null and are regenerated.
+ */
+@Converter
+public class TrigramVectorConverter implements AttributeConverter<TrigramVector, byte[]> {
+
+    @Override
+    public byte[] convertToDatabaseColumn(TrigramVector vector) {
+        return vector != null ? vector.toBytes() : null;
+    }
+
+    @Override
+    public TrigramVector convertToEntityAttribute(byte[] bytes) {
+        return TrigramVector.fromBytes(bytes);
+    }
+}
@@ -0,0 +1,6 @@
+-- Only applied with plagiarism.database.enabled=true (see FlywayConfig). The
+-- DATABASE compare mode needs intarray's icount(a & b) and a GIN index on
+-- trigram_set for the && probe. Creating the extension needs the CREATE
+-- privilege on the database, unless a superuser has installed it already.
+CREATE EXTENSION IF NOT EXISTS intarray;
+CREATE INDEX IF NOT EXISTS idx_code_files_trigram_set ON code_files USING GIN (trigram_set gin__int_ops);
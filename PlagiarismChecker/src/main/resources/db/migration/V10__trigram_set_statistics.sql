@@ -0,0 +1,5 @@
+-- The DATABASE compare mode probes the GIN index with target codes that are
+-- rare in the corpus, judged by the most-common-element statistics of
+-- trigram_set. A larger target lists more of the common codes (up to 10x).
+ALTER TABLE code_files ALTER COLUMN trigram_set SET STATISTICS 1000;
+ANALYZE code_files;
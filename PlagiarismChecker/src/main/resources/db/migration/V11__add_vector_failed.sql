@@ -0,0 +1,7 @@
+-- Files whose vector could not be generated are set aside by the backfill
+-- worker instead of being claimed again on every run; they are retried once
+-- per application start. The partial index serves the claim query and the
+-- backlog count, which only ever look at files still waiting for a vector.
+ALTER TABLE code_files ADD COLUMN IF NOT EXISTS vector_failed BOOLEAN NOT NULL DEFAULT false;
+CREATE INDEX IF NOT EXISTS idx_code_files_backfill ON code_files (id)
+    WHERE trigrams_generated = false AND NOT vector_failed;
@@ -0,0 +1,11 @@
+-- Ownership and corpus identity of all-pairs jobs. run_token names the run
+-- that last claimed a job; every write of a run is conditioned on it, so a
+-- run superseded by a resume stops at its next block instead of racing the
+-- new one. heartbeat_at advances with every committed block and tells a live
+-- run from one orphaned by a stopped instance. id_checksum hashes the ordered
+-- file ids a job scores, so a resume notices a corpus that changed at the
+-- same size.
+ALTER TABLE similarity_jobs
+    ADD COLUMN IF NOT EXISTS run_token VARCHAR(36),
+    ADD COLUMN IF NOT EXISTS heartbeat_at TIMESTAMP,
+    ADD COLUMN IF NOT EXISTS id_checksum BIGINT;
@@ -0,0 +1,5 @@
+-- Normalization that produced the stored token stream: LEXICAL for the
+-- lexer, AST for the structural JavaParser stream. Both are n-grammed the
+-- same way but share almost no tokens, so files are only scored against
+-- files with the same normalization. Existing rows all came from the lexer.
+ALTER TABLE code_files ADD COLUMN IF NOT EXISTS normalization VARCHAR(16) NOT NULL DEFAULT 'LEXICAL';
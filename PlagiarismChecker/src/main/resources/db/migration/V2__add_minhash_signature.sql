@@ -0,0 +1,3 @@
+-- MinHash signature (128 x int32, big-endian) computed next to trigram_vector,
+-- used to rebuild the LSH candidate tables at startup
+ALTER TABLE code_files ADD COLUMN IF NOT EXISTS minhash_signature BYTEA;
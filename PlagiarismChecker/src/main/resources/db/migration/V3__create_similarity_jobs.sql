@@ -0,0 +1,40 @@
+-- Corpus-wide all-pairs similarity jobs, their completed blocks and the
+-- above-threshold edges they produce
+
+CREATE TABLE IF NOT EXISTS similarity_jobs (
+    job_id            VARCHAR(36) PRIMARY KEY,
+    language          VARCHAR(50),
+    created_from      TIMESTAMP,
+    created_to        TIMESTAMP,
+    threshold         DOUBLE PRECISION NOT NULL,
+    block_size        INTEGER NOT NULL,
+    max_file_id       BIGINT NOT NULL,
+    file_count        INTEGER,
+    total_blocks      INTEGER,
+    completed_blocks  INTEGER NOT NULL DEFAULT 0,
+    edges_found       BIGINT NOT NULL DEFAULT 0,
+    status            VARCHAR(20) NOT NULL,
+    error_message     TEXT,
+    start_time        TIMESTAMP NOT NULL,
+    end_time          TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS similarity_job_blocks (
+    job_id        VARCHAR(36) NOT NULL REFERENCES similarity_jobs (job_id) ON DELETE CASCADE,
+    block_row     INTEGER NOT NULL,
+    block_col     INTEGER NOT NULL,
+    edges         INTEGER NOT NULL,
+    completed_at  TIMESTAMP NOT NULL,
+    PRIMARY KEY (job_id, block_row, block_col)
+);
+
+CREATE TABLE IF NOT EXISTS similarity_edges (
+    job_id      VARCHAR(36) NOT NULL REFERENCES similarity_jobs (job_id) ON DELETE CASCADE,
+    file_id1    BIGINT NOT NULL,
+    file_id2    BIGINT NOT NULL,
+    similarity  DOUBLE PRECISION NOT NULL,
+    PRIMARY KEY (job_id, file_id1, file_id2)
+);
+
+CREATE INDEX IF NOT EXISTS idx_similarity_edges_job_similarity
+    ON similarity_edges (job_id, similarity DESC);
@@ -0,0 +1,4 @@
+-- L2 norm and number of distinct trigrams of trigram_vector, written with it,
+-- so scoring never re-walks the vector to compute them
+ALTER TABLE code_files ADD COLUMN IF NOT EXISTS trigram_norm DOUBLE PRECISION;
+ALTER TABLE code_files ADD COLUMN IF NOT EXISTS trigram_count INTEGER;
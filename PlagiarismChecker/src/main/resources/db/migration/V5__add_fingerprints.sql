@@ -0,0 +1,3 @@
+-- Winnowing fingerprints: varint count, then (int32 hash, varint position delta)
+-- per selected k-gram; rebuilt into the fingerprint index at startup
+ALTER TABLE code_files ADD COLUMN IF NOT EXISTS fingerprints BYTEA;
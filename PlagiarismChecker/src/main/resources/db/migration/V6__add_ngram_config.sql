@@ -0,0 +1,3 @@
+-- N-gram configuration that produced trigram_vector (CHAR:3, CHAR:5, WORD:2, ...).
+-- Existing vectors were all built as character trigrams.
+ALTER TABLE code_files ADD COLUMN IF NOT EXISTS ngram_config VARCHAR(16) NOT NULL DEFAULT 'CHAR:3';
@@ -0,0 +1,5 @@
+-- Binary trigram vectors: varint entry count, then (varint code gap, varint
+-- count) per entry in code order. Rows still holding only the JSONB
+-- trigram_vector are converted when the application next loads them, which
+-- also clears the JSONB value.
+ALTER TABLE code_files ADD COLUMN IF NOT EXISTS trigram_codes BYTEA;
@@ -0,0 +1,4 @@
+-- Distinct n-gram codes of each vector, for the database-side candidate
+-- prefilter. The intarray extension and the GIN index the prefilter probes
+-- live in db/database-mode, applied only when that compare mode is enabled.
+ALTER TABLE code_files ADD COLUMN IF NOT EXISTS trigram_set INTEGER[];
@@ -0,0 +1,7 @@
+-- Normalized content compressed by the application (codec byte, length,
+-- deflated UTF-8). The TEXT column only holds rows written before this
+-- migration, until the background vector backfill rewrites them. The bytes
+-- are already compressed, so TOAST is told not to try again.
+ALTER TABLE code_files ADD COLUMN IF NOT EXISTS content_deflated BYTEA;
+ALTER TABLE code_files ALTER COLUMN content_deflated SET STORAGE EXTERNAL;
+ALTER TABLE code_files ALTER COLUMN content DROP NOT NULL;
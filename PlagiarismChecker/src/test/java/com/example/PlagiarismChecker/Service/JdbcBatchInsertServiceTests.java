@@ -0,0 +1,202 @@
+package com.example.PlagiarismChecker.Service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Array;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.example.PlagiarismChecker.model.CodeFile;
+import com.example.PlagiarismChecker.model.CompressedText;
+
+/**
+ * Round-trips batches through both bulk insert paths against a real
+ * PostgreSQL, so the binary COPY encoding (int4[] layout, timestamp epoch,
+ * field count) is checked by the server rather than by eye. Skipped when no
+ * Docker daemon is available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class JdbcBatchInsertServiceTests {
+
+	@Container
+	private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+	private static final NgramExtractor ngramExtractor = new NgramExtractor(3, "CHAR");
+
+	private JdbcTemplate jdbcTemplate;
+
+	private TransactionTemplate transactionTemplate;
+
+	private JdbcBatchInsertService jdbcBatchInsertService;
+
+	@BeforeAll
+	static void createSchema() {
+		DriverManagerDataSource dataSource = dataSource();
+		// Table as it existed before Flyway took over (baseline version 1)
+		new JdbcTemplate(dataSource).execute("""
+				CREATE SEQUENCE code_file_sequence START 1 INCREMENT 50;
+				CREATE TABLE code_files (
+				    id                 BIGINT PRIMARY KEY,
+				    file_name          VARCHAR(500) NOT NULL,
+				    content            TEXT NOT NULL,
+				    language           VARCHAR(50) NOT NULL,
+				    created_at         TIMESTAMP NOT NULL,
+				    trigram_vector     JSONB,
+				    content_hash       VARCHAR(64) NOT NULL UNIQUE,
+				    trigrams_generated BOOLEAN NOT NULL DEFAULT false
+				);
+				""");
+		Flyway.configure()
+				.dataSource(dataSource)
+				.locations("classpath:db/migration")
+				.baselineOnMigrate(true)
+				.baselineVersion("1")
+				.load()
+				.migrate();
+	}
+
+	@BeforeEach
+	void setUp() {
+		DriverManagerDataSource dataSource = dataSource();
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+		jdbcBatchInsertService = new JdbcBatchInsertService();
+		ReflectionTestUtils.setField(jdbcBatchInsertService, "jdbcTemplate", jdbcTemplate);
+	}
+
+	@Test
+	void copyInsertRoundTripsEveryColumn() {
+		List<CodeFile> files = new ArrayList<>();
+		for (int i = 0; i < 25; i++) {
+			files.add(codeFile("File" + i + ".java",
+					"public class file" + i + " { int value = " + i + "; string name = été " + i + "; }"));
+		}
+		files.get(1).setNormalization(NormalizedDocument.AST);
+		// Empty code set: zero-dimensional int4[]
+		files.add(codeFile("Empty.java", ""));
+
+		Map<String, Long> ids = transactionTemplate
+				.execute(status -> jdbcBatchInsertService.copyInsertWithTrigrams(files));
+
+		assertThat(ids).hasSize(files.size());
+		for (CodeFile file : files) {
+			assertStored(ids.get(file.getContentHash()), file);
+		}
+	}
+
+	@Test
+	void copyInsertSkipsExistingHashesAndReturnsOnlyNewIds() {
+		CodeFile existing = codeFile("Existing.java", "int existing = 1;");
+		Map<String, Long> first = transactionTemplate
+				.execute(status -> jdbcBatchInsertService.batchInsertWithTrigrams(List.of(existing)));
+
+		CodeFile duplicate = codeFile("Duplicate.java", "int existing = 1;");
+		CodeFile fresh = codeFile("Fresh.java", "int fresh = 2;");
+		Map<String, Long> second = transactionTemplate
+				.execute(status -> jdbcBatchInsertService.copyInsertWithTrigrams(List.of(duplicate, fresh)));
+
+		assertThat(second).containsOnlyKeys(fresh.getContentHash());
+		assertThat(second.get(fresh.getContentHash())).isNotEqualTo(first.get(existing.getContentHash()));
+		assertStored(first.get(existing.getContentHash()), existing);
+		assertStored(second.get(fresh.getContentHash()), fresh);
+		// The staging table is dropped at commit
+		assertThat(jdbcTemplate.queryForObject("SELECT to_regclass('code_files_staging') IS NULL", Boolean.class))
+				.isTrue();
+	}
+
+	@Test
+	void copyAndInsertPathsStoreTheSameRow() {
+		CodeFile viaInsert = codeFile("Same.java", "for i in range ( n ) : total += i");
+		CodeFile viaCopy = codeFile("Same.java", "for i in range ( n ) : total += i");
+		viaCopy.setContentHash(viaInsert.getContentHash() + "-copy");
+
+		long insertId = transactionTemplate
+				.execute(status -> jdbcBatchInsertService.batchInsertWithTrigrams(List.of(viaInsert)))
+				.get(viaInsert.getContentHash());
+		long copyId = transactionTemplate
+				.execute(status -> jdbcBatchInsertService.copyInsertWithTrigrams(List.of(viaCopy)))
+				.get(viaCopy.getContentHash());
+
+		String columns = """
+				SELECT file_name, content_deflated, language, created_at, trigram_codes, trigram_set::text,
+				       trigram_norm, trigram_count, minhash_signature, fingerprints, ngram_config, normalization,
+				       trigrams_generated
+				FROM code_files WHERE id = ?
+				""";
+		Map<String, Object> inserted = new HashMap<>(jdbcTemplate.queryForMap(columns, insertId));
+		Map<String, Object> copied = new HashMap<>(jdbcTemplate.queryForMap(columns, copyId));
+		for (String column : inserted.keySet()) {
+			Object expected = inserted.get(column);
+			Object actual = copied.get(column);
+			if (expected instanceof byte[] bytes) {
+				assertThat((byte[]) actual).as(column).isEqualTo(bytes);
+			} else {
+				assertThat(actual).as(column).isEqualTo(expected);
+			}
+		}
+	}
+
+	private void assertStored(Long id, CodeFile file) {
+		assertThat(id).isNotNull();
+		jdbcTemplate.query("SELECT * FROM code_files WHERE id = ?", (ResultSet rs) -> {
+			assertThat(rs.getString("file_name")).isEqualTo(file.getFileName());
+			assertThat(CompressedText.fromBytes(rs.getBytes("content_deflated")).text()).isEqualTo(file.getContent());
+			assertThat(rs.getString("content")).isNull();
+			assertThat(rs.getString("language")).isEqualTo(file.getLanguage());
+			assertThat(rs.getTimestamp("created_at").toLocalDateTime()).isEqualTo(file.getCreatedAt());
+			assertThat(rs.getString("content_hash")).isEqualTo(file.getContentHash());
+
+			TrigramVector vector = TrigramVector.fromBytes(rs.getBytes("trigram_codes"));
+			assertThat(vector.codes()).isEqualTo(file.getTrigramCodes().codes());
+			assertThat(vector.counts()).isEqualTo(file.getTrigramCodes().counts());
+			Array set = rs.getArray("trigram_set");
+			assertThat((Integer[]) set.getArray()).containsExactly(
+					Arrays.stream(file.getTrigramSet()).boxed().toArray(Integer[]::new));
+			assertThat(rs.getDouble("trigram_norm")).isEqualTo(file.getTrigramNorm());
+			assertThat(rs.getInt("trigram_count")).isEqualTo(file.getTrigramCount());
+			assertThat(rs.getBytes("minhash_signature")).isEqualTo(file.getMinhashSignature());
+			assertThat(rs.getBytes("fingerprints")).isEqualTo(file.getFingerprints());
+			assertThat(rs.getString("ngram_config")).isEqualTo(file.getNgramConfig());
+			assertThat(rs.getString("normalization")).isEqualTo(file.getNormalization());
+			assertThat(rs.getBoolean("trigrams_generated")).isTrue();
+		}, id);
+	}
+
+	private static CodeFile codeFile(String fileName, String content) {
+		TrigramVector vector = ngramExtractor.extract(content, content.length());
+		CodeFile file = new CodeFile();
+		file.setFileName(fileName);
+		file.setLanguage("JAVA");
+		// Sub-millisecond precision, truncated to the microseconds a timestamp column holds
+		file.setCreatedAt(LocalDateTime.of(2024, 2, 29, 13, 45, 7, 123_456_000));
+		file.setContent(content);
+		file.setContentHash(Integer.toHexString(content.hashCode()) + "-" + content.length());
+		file.setTrigramCodes(vector);
+		file.setNgramConfig(ngramExtractor.config());
+		file.setMinhashSignature(MinHashSignature.toBytes(MinHashSignature.compute(vector)));
+		file.setFingerprints(WinnowingFingerprints.compute(content).toBytes());
+		return file;
+	}
+
+	private static DriverManagerDataSource dataSource() {
+		return new DriverManagerDataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+	}
+}
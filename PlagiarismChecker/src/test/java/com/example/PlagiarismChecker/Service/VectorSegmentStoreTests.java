@@ -0,0 +1,183 @@
+package com.example.PlagiarismChecker.Service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Round-trips vectors through the memory-mapped segment files: appends,
+ * reopening the directory, superseding a file and compacting sealed segments
+ * must all leave the same ranking behind.
+ */
+class VectorSegmentStoreTests {
+
+	private static final NgramExtractor ngramExtractor = new NgramExtractor(3, "CHAR");
+
+	private static final CustomCosineSimilarity cosine = new CustomCosineSimilarity();
+
+	private static final TrigramVector QUERY = vector("public int total ( int a , int b ) { return a + b ; }");
+
+	@TempDir
+	Path directory;
+
+	private VectorSegmentStore store;
+
+	@AfterEach
+	void tearDown() {
+		if (store != null) {
+			store.shutdown();
+		}
+	}
+
+	@Test
+	void appendedVectorsSurviveReopen() {
+		store = open(4);
+		TrigramVector sum = vector("public int sum ( int a , int b ) { return a + b ; }");
+		TrigramVector loop = vector("for ( int i = 0 ; i < n ; i ++ ) { total += i ; }");
+		store.add(1L, "Sum.java", "java", sum);
+		store.add(2L, "Loop.java", "java", loop);
+
+		assertRanking(store.topMatches(QUERY, null, null, 0, 10), Map.of(1L, sum, 2L, loop));
+
+		store = open(4);
+		TopMatches reopened = store.topMatches(QUERY, null, null, 0, 10);
+		assertRanking(reopened, Map.of(1L, sum, 2L, loop));
+		assertThat(reopened.results().get(0).getFileName()).isEqualTo("Sum.java");
+		assertThat(reopened.results().get(0).getLanguage()).isEqualTo("JAVA");
+		assertThat(store.topMatches(QUERY, 1L, "JAVA", 0, 10).results())
+				.extracting(SimilarityResult::getFileId).containsExactly(2L);
+		assertThat(store.topMatches(QUERY, null, "PYTHON", 0, 10).results()).isEmpty();
+	}
+
+	@Test
+	void supersededVectorIsReplacedAcrossReopen() {
+		store = open(4);
+		store.add(1L, "A.java", "JAVA", vector("while ( true ) { sleep ( 1 ) ; }"));
+		store.add(2L, "B.java", "JAVA", vector("class b { }"));
+		TrigramVector replacement = vector("public int total ( int a , int b ) { return a - b ; }");
+		store.add(1L, "A.java", "JAVA", replacement);
+
+		TopMatches matches = store.topMatches(QUERY, null, null, 0, 10);
+		assertThat(matches.totalMatches()).isEqualTo(2);
+		assertThat(matches.results().get(0).getFileId()).isEqualTo(1L);
+		assertThat(matches.results().get(0).getSimilarity())
+				.isCloseTo(cosine.cosineSimilarity(QUERY, replacement) * 100, within(1e-9));
+
+		store = open(4);
+		TopMatches reopened = store.topMatches(QUERY, null, null, 0, 10);
+		assertThat(reopened.totalMatches()).isEqualTo(2);
+		assertThat(reopened.results().get(0).getSimilarity())
+				.isCloseTo(cosine.cosineSimilarity(QUERY, replacement) * 100, within(1e-9));
+	}
+
+	@Test
+	void compactionKeepsOnlyLiveRecords() throws IOException {
+		// Two records per segment, so ten files seal several segments
+		store = open(2);
+		Map<Long, TrigramVector> vectors = new HashMap<>();
+		for (long i = 0; i < 10; i++) {
+			vectors.put(i, vector("public int f" + i + " ( int a ) { return a * " + i + " + total ; }"));
+			store.add(i, "F" + i + ".java", "JAVA", vectors.get(i));
+		}
+		// Supersede files in sealed segments; the merge must not bring the old records back
+		vectors.put(0L, vector("print ( 'zero' )"));
+		vectors.put(3L, vector("public int total ( int a , int b ) { return a + b ; } // three"));
+		store.add(0L, "F0.java", "JAVA", vectors.get(0L));
+		store.add(3L, "F3.java", "JAVA", vectors.get(3L));
+		TopMatches before = store.topMatches(QUERY, null, null, 0, 20);
+		int segmentsBefore = store.segmentCount();
+
+		store.compactNow();
+
+		assertThat(store.segmentCount()).isLessThan(segmentsBefore);
+		assertThat(segmentFiles()).hasSize(store.segmentCount());
+		TopMatches after = store.topMatches(QUERY, null, null, 0, 20);
+		assertSameRanking(after, before);
+		assertRanking(after, vectors);
+
+		store = open(2);
+		assertSameRanking(store.topMatches(QUERY, null, null, 0, 20), before);
+	}
+
+	@Test
+	void recordBeyondThePublishedCountIsIgnoredOnReopen() throws IOException {
+		store = open(4);
+		TrigramVector first = vector("int first = 1 ;");
+		TrigramVector second = vector("int second = 2 ;");
+		store.add(1L, "First.java", "JAVA", first);
+		store.add(2L, "Second.java", "JAVA", second);
+
+		// A crash after the record bytes but before the count: the header still says one
+		List<Path> files = segmentFiles();
+		assertThat(files).hasSize(1);
+		try (RandomAccessFile file = new RandomAccessFile(files.get(0).toFile(), "rw")) {
+			file.seek(12);
+			file.write(new byte[] { 1, 0, 0, 0 });
+		}
+
+		store = open(4);
+		assertThat(store.topMatches(first, null, null, 0, 10).results())
+				.extracting(SimilarityResult::getFileId).containsExactly(1L);
+
+		// Re-indexing appends the lost file again
+		store.add(2L, "Second.java", "JAVA", second);
+		store = open(4);
+		assertThat(store.topMatches(second, null, null, 0, 10).results())
+				.extracting(SimilarityResult::getFileId).contains(1L, 2L);
+	}
+
+	private VectorSegmentStore open(int segmentRecords) {
+		if (store != null) {
+			store.shutdown();
+		}
+		VectorSegmentStore opened = new VectorSegmentStore(true, directory.toString(), segmentRecords, 1 << 16, 100,
+				ngramExtractor);
+		opened.open();
+		return opened;
+	}
+
+	private List<Path> segmentFiles() throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.filter(path -> path.getFileName().toString().endsWith(".seg")).toList();
+		}
+	}
+
+	/** Results are exactly the given files, scored like the heap cosine */
+	private static void assertRanking(TopMatches matches, Map<Long, TrigramVector> vectors) {
+		assertThat(matches.totalMatches()).isEqualTo(vectors.size());
+		assertThat(scores(matches)).containsOnlyKeys(vectors.keySet());
+		for (SimilarityResult result : matches.results()) {
+			assertThat(result.getSimilarity()).isCloseTo(
+					cosine.cosineSimilarity(QUERY, vectors.get(result.getFileId())) * 100, within(1e-9));
+		}
+	}
+
+	private static void assertSameRanking(TopMatches actual, TopMatches expected) {
+		assertThat(actual.totalMatches()).isEqualTo(expected.totalMatches());
+		assertThat(scores(actual)).isEqualTo(scores(expected));
+	}
+
+	private static Map<Long, Double> scores(TopMatches matches) {
+		Map<Long, Double> scores = new HashMap<>();
+		for (SimilarityResult result : matches.results()) {
+			scores.put(result.getFileId(), result.getSimilarity());
+		}
+		return scores;
+	}
+
+	private static TrigramVector vector(String content) {
+		return ngramExtractor.extract(content, content.length());
+	}
+}